@@ -0,0 +1,63 @@
+package itstep.learning.benchmarks.jmh;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import itstep.learning.dal.dto.CartItem;
+import itstep.learning.dal.dto.Product;
+import itstep.learning.models.Order;
+import itstep.learning.services.LocalDateTimeAdapter;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация списков Product и Order тем же Gson, что и в сервлетах (Order — с LocalDateTimeAdapter).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class GsonSerializationBenchmark {
+    private final Gson gson = new GsonBuilder()
+            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+            .create();
+
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    private List<Product> products;
+    private List<Order> orders;
+
+    @Setup
+    public void setup() {
+        products = new ArrayList<>(size);
+        orders = new ArrayList<>(size);
+        UUID categoryId = UUID.randomUUID();
+        UUID userId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < size; i++) {
+            Product product = new Product("Товар " + i, "Опис товару номер " + i, 100 + i * 1.5,
+                    "CODE-" + i, i % 50, categoryId, "img-" + i + ".jpg");
+            products.add(product);
+
+            List<CartItem> items = new ArrayList<>(3);
+            for (int j = 0; j < 3; j++) {
+                items.add(new CartItem(UUID.randomUUID(), null, product.getProductId(), null, product.getPrice(), (short) (j + 1)));
+            }
+            orders.add(new Order(UUID.randomUUID(), userId, product.getPrice() * 6, "NEW", now, now, items));
+        }
+    }
+
+    @Benchmark
+    public String serializeProducts() {
+        return gson.toJson(products);
+    }
+
+    @Benchmark
+    public String serializeOrders() {
+        return gson.toJson(orders);
+    }
+}
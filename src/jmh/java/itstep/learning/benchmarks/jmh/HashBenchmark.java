@@ -0,0 +1,43 @@
+package itstep.learning.benchmarks.jmh;
+
+import itstep.learning.services.hash.Md5HashService;
+import itstep.learning.services.kdf.KdfPolicyService;
+import itstep.learning.services.kdf.PbKdfService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Md5HashService.digest и PbKdfService.dk (PBKDF2 с фиксированными 10 000 итераций).
+ * Для оценки выделений запускать с профайлером: -Djmh.args="-prof gc".
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class HashBenchmark {
+    private Md5HashService md5HashService;
+    private PbKdfService pbKdfService;
+
+    @Param({"123", "a-somewhat-longer-input-for-md5-digest-0123456789"})
+    public String input;
+
+    @Setup
+    public void setup() {
+        Logger.getLogger("").setLevel(Level.WARNING);
+        md5HashService = new Md5HashService();
+        pbKdfService = new PbKdfService(new KdfPolicyService(MapConfigService.defaults()));
+    }
+
+    @Benchmark
+    public String md5Digest() {
+        return md5HashService.digest(input);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public String pbkdf2Dk() {
+        return pbKdfService.dk(input, "salt-0123456789");
+    }
+}
@@ -0,0 +1,37 @@
+package itstep.learning.benchmarks.jmh;
+
+import itstep.learning.services.config.JsonConfigService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * JsonConfigService.getString по пути из appsettings.json (src/jmh/resources).
+ * Логгер сервиса остаётся на уровне INFO, но без вывода: в замер входит построение сообщения,
+ * как и в приложении.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class JsonConfigServiceBenchmark {
+    private JsonConfigService configService;
+
+    @Param({"jwt.secret", "db.MySql.pool.maxSize"})
+    public String key;
+
+    @Setup
+    public void setup() {
+        Logger root = Logger.getLogger("");
+        for (var handler : root.getHandlers()) {
+            handler.setLevel(Level.OFF);
+        }
+        configService = new JsonConfigService(Logger.getLogger(JsonConfigServiceBenchmark.class.getName()));
+    }
+
+    @Benchmark
+    public String getString() {
+        return configService.getString(key);
+    }
+}
@@ -0,0 +1,66 @@
+package itstep.learning.benchmarks.jmh;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import itstep.learning.services.JwtService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Выдача и проверка JWT. {@code fromJwtCached} — повторная проверка того же токена (попадание в кеш
+ * проверенных), {@code fromJwtVerify} — полная проверка подписи: заранее подписанные токены
+ * перебираются по кругу сервисом с кешем на одну запись.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class JwtServiceBenchmark {
+    private static final int TOKEN_COUNT = 4096;
+
+    private JwtService jwtService;
+    private JwtService uncachedJwtService;
+    private JsonObject payload;
+    private String token;
+    private String[] tokens;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Logger.getLogger("").setLevel(Level.WARNING);
+        jwtService = new JwtService(MapConfigService.defaults());
+        uncachedJwtService = new JwtService(MapConfigService.defaults().with("jwt.cacheSize", 1));
+
+        payload = new JsonObject();
+        payload.addProperty("user_id", 1234567890L);
+        payload.addProperty("login", "benchmark");
+        payload.addProperty("role", "user");
+
+        token = jwtService.createJwt(payload);
+        tokens = new String[TOKEN_COUNT];
+        for (int i = 0; i < TOKEN_COUNT; i++) {
+            JsonObject p = payload.deepCopy();
+            p.addProperty("n", i);
+            tokens[i] = jwtService.createJwt(p);
+        }
+    }
+
+    @Benchmark
+    public String createJwt() {
+        return jwtService.createJwt(payload);
+    }
+
+    @Benchmark
+    public JsonElement fromJwtCached() {
+        return jwtService.fromJwt(token);
+    }
+
+    @Benchmark
+    public JsonElement fromJwtVerify() {
+        String t = tokens[next];
+        next = (next + 1) & (TOKEN_COUNT - 1);
+        return uncachedJwtService.fromJwt(t);
+    }
+}
@@ -0,0 +1,54 @@
+package itstep.learning.benchmarks.jmh;
+
+import itstep.learning.services.config.ConfigService;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Конфигурация в памяти для бенчмарков: без appsettings.json и без логирования на каждый ключ.
+ */
+class MapConfigService implements ConfigService {
+    private final Map<String, Object> values = new HashMap<>();
+
+    MapConfigService with(String key, Object value) {
+        values.put(key, value);
+        return this;
+    }
+
+    static MapConfigService defaults() {
+        return new MapConfigService()
+                .with("jwt.secret", "benchmark-secret-key-that-is-long-enough-for-hs256")
+                .with("jwt.lifetime", 3600)
+                .with("jwt.cacheSize", 10_000)
+                // Фиксированная стоимость вместо калибровки, чтобы результаты были сравнимы между машинами
+                .with("auth.kdf.bcryptCost", 10)
+                .with("auth.kdf.pbkdf2Iterations", 10_000);
+    }
+
+    @Override
+    public Object getValue(String path) {
+        return values.get(path);
+    }
+
+    @Override
+    public String getString(String key) {
+        Object value = values.get(key);
+        return value == null ? null : value.toString();
+    }
+
+    @Override
+    public int getInt(String key) {
+        return Integer.parseInt(getString(key));
+    }
+
+    @Override
+    public boolean getBoolean(String key) {
+        return Boolean.parseBoolean(getString(key));
+    }
+
+    @Override
+    public boolean hasKey(String path) {
+        return values.containsKey(path);
+    }
+}
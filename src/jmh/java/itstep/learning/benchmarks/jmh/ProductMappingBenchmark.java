@@ -0,0 +1,59 @@
+package itstep.learning.benchmarks.jmh;
+
+import itstep.learning.dal.dto.Product;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Product.fromResultSet на ResultSet-заглушке (Proxy): меряется только маппинг, без драйвера и сети.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class ProductMappingBenchmark {
+    private ResultSet resultSet;
+
+    @Setup
+    public void setup() {
+        Map<String, Object> row = new HashMap<>();
+        row.put("product_id", UUID.randomUUID().toString());
+        row.put("name", "Ноутбук 15\"");
+        row.put("description", "Легкий ноутбук для роботи та навчання");
+        row.put("price", 25999.99);
+        row.put("code", "NB-15-2025");
+        row.put("stock", 42);
+        row.put("category_id", UUID.randomUUID().toString());
+        row.put("image_id", "a1b2c3d4.jpg");
+
+        resultSet = (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    Object value = args != null && args.length == 1 ? row.get(String.valueOf(args[0])) : null;
+                    switch (method.getName()) {
+                        case "getString":
+                            return value == null ? null : value.toString();
+                        case "getDouble":
+                            return value == null ? 0.0 : ((Number) value).doubleValue();
+                        case "getInt":
+                            return value == null ? 0 : ((Number) value).intValue();
+                        case "wasNull":
+                            return false;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    @Benchmark
+    public Product fromResultSet() throws SQLException {
+        return Product.fromResultSet(resultSet);
+    }
+}
@@ -0,0 +1,21 @@
+package itstep.learning.benchmarks.jmh;
+
+import itstep.learning.services.random.RandomServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class RandomServiceBenchmark {
+    private final RandomServiceImpl randomService = new RandomServiceImpl();
+
+    @Param({"9", "32"})
+    public int length;
+
+    @Benchmark
+    public String randomString() {
+        return randomService.randomString(length);
+    }
+}
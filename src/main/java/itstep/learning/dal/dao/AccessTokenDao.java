@@ -1,121 +1,535 @@
 package itstep.learning.dal.dao;
 
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import itstep.learning.services.DbService.DbService;
+import itstep.learning.services.DbService.TransactionScope;
+import itstep.learning.services.config.ConfigService;
 
-import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+import java.util.concurrent.*;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.security.Key;
-import io.jsonwebtoken.security.Keys;
-
-import com.google.inject.Inject;
-
-import com.google.inject.Singleton;
-import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
-import itstep.learning.dal.dto.UserAccess;
-import itstep.learning.services.DbService.DbService;
-import itstep.learning.services.config.ConfigService;
-
 
+/**
+ * Хранилище токенов доступа.
+ * <p>
+ * Активные токены и отзывы держатся в памяти: проверка и поиск токена — O(1) без обращения к БД.
+ * Истечение срока обрабатывается корзинами по времени (одна корзина на {@code tokens.expiryBucketSeconds}),
+ * поэтому очистка не перебирает все токены. Изменения пишутся в {@code access_tokens} асинхронно,
+ * пакетами (write-behind), а при старте хранилище прогревается из таблицы.
+ * Пока прогрев не завершён, промахи памяти проверяются по БД, как раньше.
+ */
 @Singleton
 public class AccessTokenDao {
 
-    private final DbService dbService;
     private static final Logger logger = Logger.getLogger(AccessTokenDao.class.getName());
-
-    @Inject
-    public AccessTokenDao(DbService dbService) {
-        this.dbService = dbService;
-        logger.info("✅ AccessTokenDao создан с использованием DbService.");
-    }
+    // Потолок паузы между повторами записи и прогрева, пока БД недоступна
+    private static final long MAX_RETRY_DELAY_MS = 30_000;
 
     private static final String SQL_IS_TOKEN_VALID =
             "SELECT COUNT(*) FROM access_tokens WHERE access_token_id = ? AND user_access_id = ? AND expires_at > NOW()";
+    // Повторное сохранение того же токена (двойной saveToken, повтор после сбоя) не должно ронять пакет
     private static final String SQL_SAVE_TOKEN =
-            "INSERT INTO access_tokens (access_token_id, user_access_id, issued_at, expires_at) VALUES (?, ?, ?, ?)";
+            "INSERT INTO access_tokens (access_token_id, user_access_id, issued_at, expires_at) VALUES (?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE user_access_id = VALUES(user_access_id), "
+                    + "issued_at = VALUES(issued_at), expires_at = VALUES(expires_at)";
     private static final String SQL_UPDATE_TOKEN =
             "UPDATE access_tokens SET access_token_id = ?, issued_at = ?, expires_at = ? WHERE user_access_id = ?";
     private static final String SQL_GET_TOKEN =
             "SELECT access_token_id, expires_at FROM access_tokens WHERE user_access_id = ? AND expires_at > NOW()";
     private static final String SQL_DELETE_TOKEN =
             "DELETE FROM access_tokens WHERE access_token_id = ?";
+    private static final String SQL_LOAD_ACTIVE_TOKENS =
+            "SELECT access_token_id, user_access_id, expires_at FROM access_tokens WHERE expires_at > NOW()";
+    // Порция идёт по индексу expires_at от самых старых строк и ограничена фиксированной границей
+    private static final String SQL_PURGE_EXPIRED_CHUNK =
+            "DELETE FROM access_tokens WHERE expires_at <= ? ORDER BY expires_at LIMIT ?";
+
+    private final DbService dbService;
+    private final long bucketMillis;
+    private final int batchSize;
+    private final long flushIntervalMs;
+
+    // token -> запись; userId -> последний выданный токен
+    private final ConcurrentHashMap<String, TokenEntry> activeTokens = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, TokenEntry> tokensByUser = new ConcurrentHashMap<>();
+    // Отозванные/заменённые токены (token -> момент истечения), чтобы прогрев не вернул их из БД
+    private final ConcurrentHashMap<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    // Конец корзины (мс) -> токены, истекающие в этой корзине
+    private final ConcurrentSkipListMap<Long, Set<String>> expiryBuckets = new ConcurrentSkipListMap<>();
+
+    // Новые изменения — в хвост, повторы — в голову; разбирает очередь только поток записи
+    private final BlockingDeque<PendingWrite> pendingWrites = new LinkedBlockingDeque<>();
+    private final ScheduledExecutorService worker;
+    private volatile boolean warmed;
+    // Состояние повторов; меняется только потоком записи (и shutdown() после его остановки)
+    private int failedFlushes;
+    private long nextFlushAtNanos;
+    private int failedWarmUps;
+
+    @Inject
+    public AccessTokenDao(DbService dbService, ConfigService configService) {
+        this.dbService = dbService;
+        this.bucketMillis = Math.max(1, configService.getLong("tokens.expiryBucketSeconds", 60)) * 1000;
+        this.batchSize = Math.max(1, configService.getInt("tokens.batchSize", 500));
+        this.flushIntervalMs = Math.max(10, configService.getLong("tokens.flushIntervalMs", 500));
+
+        worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "access-token-store");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Прогрев выполняется первым на том же потоке, что и запись, поэтому сброс начнётся после него
+        worker.execute(this::warmUp);
+        worker.scheduleWithFixedDelay(() -> flushPending(false), flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        worker.scheduleWithFixedDelay(this::evictExpired, bucketMillis, bucketMillis, TimeUnit.MILLISECONDS);
+        logger.info("✅ AccessTokenDao создан (в памяти, запись пакетами каждые " + flushIntervalMs + " мс)");
+    }
 
     public boolean isTokenValid(String token, String userId) {
-        try (Connection conn = dbService.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(SQL_IS_TOKEN_VALID)) {
-            stmt.setString(1, token);
-            stmt.setString(2, userId);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next() && rs.getInt(1) > 0) {
-                    logger.info("✅ Токен действителен: " + token);
-                    return true;
-                }
+        if (token == null || userId == null) {
+            return false;
+        }
+        TokenEntry entry = activeTokens.get(token);
+        if (entry != null) {
+            boolean valid = entry.userId.equals(userId) && entry.isAlive(System.currentTimeMillis());
+            if (!valid) {
+                logger.fine("❌ Недействительный токен для user_id=" + userId);
             }
-            logger.warning("❌ Недействительный токен: " + token);
+            return valid;
+        }
+        if (warmed || revokedTokens.containsKey(token)) {
+            logger.fine("❌ Токен не найден в хранилище для user_id=" + userId);
+            return false;
+        }
+        return isTokenValidInDb(token, userId);
+    }
+
+    public boolean saveToken(String token, String userId, LocalDateTime issuedAt, LocalDateTime expiresAt) {
+        if (token == null || userId == null || issuedAt == null || expiresAt == null) {
+            logger.warning("⚠️ Токен не был сохранён: неполные данные");
+            return false;
+        }
+        TokenEntry entry = new TokenEntry(token, userId, Timestamp.valueOf(expiresAt).getTime());
+        revokedTokens.remove(token);
+        remember(entry);
+        enqueue(PendingWrite.save(token, userId, Timestamp.valueOf(issuedAt), Timestamp.valueOf(expiresAt)));
+        logger.fine("✅ Токен сохранён для user_id=" + userId);
+        return true;
+    }
+
+    public boolean updateToken(String newToken, String userId, LocalDateTime issuedAt, LocalDateTime expiresAt) {
+        if (newToken == null || userId == null || issuedAt == null || expiresAt == null) {
+            logger.warning("⚠️ Токен не был обновлён: неполные данные");
+            return false;
+        }
+        TokenEntry entry = new TokenEntry(newToken, userId, Timestamp.valueOf(expiresAt).getTime());
+        TokenEntry previous = tokensByUser.get(userId);
+        if (previous != null && !previous.token.equals(newToken)) {
+            // UPDATE в БД заменяет токен пользователя, поэтому старый больше не действует
+            activeTokens.remove(previous.token, previous);
+            revoke(previous.token, previous.expiresAtMillis);
+        }
+        revokedTokens.remove(newToken);
+        remember(entry);
+        enqueue(PendingWrite.update(newToken, userId, Timestamp.valueOf(issuedAt), Timestamp.valueOf(expiresAt)));
+        logger.fine("✅ Токен обновлен для user_id=" + userId);
+        return previous != null || !warmed;
+    }
+
+    public String getToken(String userId) {
+        if (userId == null) {
+            return null;
+        }
+        TokenEntry entry = tokensByUser.get(userId);
+        if (entry != null && entry.isAlive(System.currentTimeMillis()) && activeTokens.get(entry.token) == entry) {
+            return entry.token;
+        }
+        if (warmed) {
+            logger.fine("🔍 Токен не найден. Будет создан новый токен.");
+            return null;
+        }
+        return getTokenFromDb(userId);
+    }
+
+    public boolean deleteToken(String token) {
+        if (token == null) {
             return false;
+        }
+        TokenEntry removed = activeTokens.remove(token);
+        if (removed != null) {
+            tokensByUser.remove(removed.userId, removed);
+        }
+        revoke(token, removed != null ? removed.expiresAtMillis : System.currentTimeMillis() + bucketMillis);
+        enqueue(PendingWrite.delete(token));
+        logger.fine("✅ Токен удалён");
+        return removed != null || !warmed;
+    }
+
+    public int getActiveTokenCount() {
+        return activeTokens.size();
+    }
+
+    public int getPendingWriteCount() {
+        return pendingWrites.size();
+    }
+
+    /**
+     * Останавливает фоновые задачи и синхронно дописывает в БД всё, что осталось в очереди.
+     * Вызывать до закрытия пула соединений; повторный вызов безопасен.
+     */
+    public void shutdown() {
+        worker.shutdown();
+        try {
+            if (!worker.awaitTermination(5, TimeUnit.SECONDS)) {
+                worker.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            worker.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        flushPending(true);
+        logger.info("🛑 AccessTokenDao остановлен, несохранённых изменений: " + pendingWrites.size());
+    }
+
+    // ---------------- Обслуживание таблицы ----------------
+
+    /**
+     * Создаёт индексы, нужные для поиска токена пользователя и для очистки истёкших строк.
+     */
+    public boolean ensureIndexes() {
+        try (Connection conn = dbService.getConnection()) {
+            ensureIndex(conn, "idx_access_tokens_user_expires", "INDEX (user_access_id, expires_at)");
+            ensureIndex(conn, "idx_access_tokens_expires", "INDEX (expires_at)");
+            return true;
         } catch (SQLException e) {
-            logger.severe("❌ Ошибка при проверке токена: " + e.getMessage());
+            logger.log(Level.SEVERE, "❌ Ошибка создания индексов access_tokens: " + e.getMessage(), e);
             return false;
         }
     }
 
-    public boolean saveToken(String token, String userId, LocalDateTime issuedAt, LocalDateTime expiresAt) {
+    /**
+     * Удаляет одну порцию строк, истёкших до {@code cutoff}, отдельной короткой транзакцией.
+     *
+     * @return число удалённых строк или -1 при ошибке
+     */
+    public int purgeExpiredChunk(LocalDateTime cutoff, int chunkSize) {
         try (Connection conn = dbService.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(SQL_SAVE_TOKEN)) {
-            stmt.setString(1, token);
-            stmt.setString(2, userId);
-            stmt.setTimestamp(3, Timestamp.valueOf(issuedAt));
-            stmt.setTimestamp(4, Timestamp.valueOf(expiresAt));
-            int rows = stmt.executeUpdate();
-            if (rows > 0) {
-                logger.info("✅ Токен успешно сохранён в БД: " + token);
-                return true;
-            } else {
-                logger.warning("⚠️ Токен не был сохранён!");
+             PreparedStatement stmt = conn.prepareStatement(SQL_PURGE_EXPIRED_CHUNK)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(cutoff));
+            stmt.setInt(2, chunkSize);
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "❌ Ошибка удаления истёкших токенов: " + e.getMessage(), e);
+            return -1;
+        }
+    }
+
+    private void ensureIndex(Connection connection, String indexName, String definition) throws SQLException {
+        String checkSql = "SELECT 1 FROM information_schema.statistics " +
+                "WHERE table_schema = DATABASE() AND table_name = 'access_tokens' AND index_name = ?";
+        try (PreparedStatement check = connection.prepareStatement(checkSql)) {
+            check.setString(1, indexName);
+            try (ResultSet rs = check.executeQuery()) {
+                if (rs.next()) {
+                    return;
+                }
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            String ddl = "ALTER TABLE access_tokens ADD " + definition.replace("INDEX (", "INDEX " + indexName + " (");
+            statement.executeUpdate(ddl);
+            logger.info("✅ Добавлен индекс: " + ddl);
+        }
+    }
+
+    // ---------------- Память ----------------
+
+    private void remember(TokenEntry entry) {
+        activeTokens.put(entry.token, entry);
+        tokensByUser.put(entry.userId, entry);
+        addToBucket(entry.token, entry.expiresAtMillis);
+    }
+
+    private void revoke(String token, long expiresAtMillis) {
+        revokedTokens.put(token, expiresAtMillis);
+        addToBucket(token, expiresAtMillis);
+    }
+
+    private void addToBucket(String token, long expiresAtMillis) {
+        long bucketEnd = (expiresAtMillis / bucketMillis + 1) * bucketMillis;
+        expiryBuckets.computeIfAbsent(bucketEnd, k -> ConcurrentHashMap.newKeySet()).add(token);
+    }
+
+    /**
+     * Снимает только корзины, чей срок уже прошёл: стоимость пропорциональна числу истёкших токенов.
+     */
+    private void evictExpired() {
+        try {
+            long now = System.currentTimeMillis();
+            int evicted = 0;
+            Map.Entry<Long, Set<String>> bucket;
+            while ((bucket = expiryBuckets.firstEntry()) != null && bucket.getKey() <= now) {
+                expiryBuckets.remove(bucket.getKey(), bucket.getValue());
+                for (String token : bucket.getValue()) {
+                    TokenEntry entry = activeTokens.get(token);
+                    // Токен мог быть продлён и уже лежит в более поздней корзине
+                    if (entry != null && !entry.isAlive(now) && activeTokens.remove(token, entry)) {
+                        tokensByUser.remove(entry.userId, entry);
+                        evicted++;
+                    }
+                    Long revokedUntil = revokedTokens.get(token);
+                    if (revokedUntil != null && revokedUntil <= now) {
+                        revokedTokens.remove(token, revokedUntil);
+                    }
+                }
+            }
+            if (evicted > 0) {
+                logger.fine("🧹 Истёкших токенов удалено из памяти: " + evicted);
+            }
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "⚠️ Ошибка очистки истёкших токенов: " + e.getMessage(), e);
+        }
+    }
+
+    private void warmUp() {
+        long startedAt = System.nanoTime();
+        int loaded = 0;
+        try (Connection conn = dbService.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SQL_LOAD_ACTIVE_TOKENS);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                String token = rs.getString("access_token_id");
+                if (revokedTokens.containsKey(token)) {
+                    continue;
+                }
+                TokenEntry entry = new TokenEntry(token, rs.getString("user_access_id"),
+                        rs.getTimestamp("expires_at").getTime());
+                // Записи, сделанные после старта, новее строк из БД — их не перетираем
+                if (activeTokens.putIfAbsent(token, entry) == null) {
+                    tokensByUser.putIfAbsent(entry.userId, entry);
+                    addToBucket(token, entry.expiresAtMillis);
+                    loaded++;
+                }
+            }
+            warmed = true;
+            logger.info("🔥 Хранилище токенов прогрето: " + loaded + " токенов за "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt) + " мс");
+        } catch (SQLException | RuntimeException e) {
+            // Пока прогрев не удался, промахи проверяются по БД; пробуем снова с растущей паузой
+            long delayMs = retryDelayMs(++failedWarmUps);
+            logger.log(Level.SEVERE, "❌ Ошибка прогрева хранилища токенов, повтор через "
+                    + delayMs + " мс: " + e.getMessage(), e);
+            try {
+                worker.schedule(this::warmUp, delayMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException ignored) {
+                // Хранилище останавливается
+            }
+        }
+    }
+
+    // ---------------- Запись в БД (write-behind) ----------------
+
+    private void enqueue(PendingWrite write) {
+        pendingWrites.add(write);
+        if (pendingWrites.size() >= batchSize && !worker.isShutdown()) {
+            try {
+                worker.execute(() -> flushPending(false));
+            } catch (RejectedExecutionException ignored) {
+                // Останавливаемся — очередь допишет shutdown()
+            }
+        }
+    }
+
+    /**
+     * Сбрасывает очередь пакетами. После неудачи следующий сброс откладывается с экспоненциально
+     * растущей паузой (до {@value #MAX_RETRY_DELAY_MS} мс), изменения при этом не теряются.
+     *
+     * @param force не ждать паузы (финальный сброс при остановке)
+     */
+    private void flushPending(boolean force) {
+        if (!force && failedFlushes > 0 && System.nanoTime() - nextFlushAtNanos < 0) {
+            return;
+        }
+        List<PendingWrite> batch = new ArrayList<>(Math.min(batchSize, 64));
+        while (pendingWrites.drainTo(batch, batchSize) > 0) {
+            if (!flushBatch(batch)) {
+                long delayMs = retryDelayMs(++failedFlushes);
+                nextFlushAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+                logger.warning("⚠️ Запись токенов отложена на " + delayMs + " мс, в очереди: " + pendingWrites.size());
+                return;
+            }
+            batch.clear();
+        }
+        if (failedFlushes > 0) {
+            logger.info("✅ Запись токенов в БД восстановлена после " + failedFlushes + " неудачных попыток");
+            failedFlushes = 0;
+        }
+    }
+
+    private long retryDelayMs(int failures) {
+        long delay = flushIntervalMs << Math.min(failures, 16);
+        return Math.min(delay, Math.max(MAX_RETRY_DELAY_MS, flushIntervalMs));
+    }
+
+    /**
+     * Пишет пакет одной транзакцией. Подряд идущие операции одного типа уходят одним executeBatch,
+     * порядок между типами сохраняется (например, save и затем delete одного токена).
+     * Если пакет отклонён не из-за связи с БД, он пишется построчно — см. {@link #flushOneByOne}.
+     */
+    private boolean flushBatch(List<PendingWrite> batch) {
+        long startedAt = System.nanoTime();
+        try (TransactionScope tx = TransactionScope.begin(dbService);
+             Connection conn = tx.getConnection();
+             PreparedStatement saveStmt = conn.prepareStatement(SQL_SAVE_TOKEN);
+             PreparedStatement updateStmt = conn.prepareStatement(SQL_UPDATE_TOKEN);
+             PreparedStatement deleteStmt = conn.prepareStatement(SQL_DELETE_TOKEN)) {
+            PendingWrite.Kind current = null;
+            for (PendingWrite write : batch) {
+                if (current != null && current != write.kind) {
+                    statementFor(current, saveStmt, updateStmt, deleteStmt).executeBatch();
+                }
+                current = write.kind;
+                bind(write, statementFor(write.kind, saveStmt, updateStmt, deleteStmt)).addBatch();
+            }
+            if (current != null) {
+                statementFor(current, saveStmt, updateStmt, deleteStmt).executeBatch();
+            }
+            tx.commit();
+            logger.fine("💾 Токенов записано в БД: " + batch.size() + " за "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt) + " мс");
+            return true;
+        } catch (SQLException | RuntimeException e) {
+            if (isConnectionFailure(e)) {
+                logger.log(Level.SEVERE, "❌ Ошибка записи токенов в БД: " + e.getMessage(), e);
+                requeue(batch);
                 return false;
             }
-        } catch (SQLException e) {
-            logger.severe("❌ Ошибка сохранения токена: " + e.getMessage());
+            logger.log(Level.WARNING, "⚠️ Пакет токенов отклонён, пишем построчно: " + e.getMessage(), e);
+            return flushOneByOne(batch);
+        }
+    }
+
+    /**
+     * Запасной путь для отклонённого пакета: каждая строка — отдельный запрос в auto-commit.
+     * Строка, которую БД отвергает по существу (ограничения, данные), отбрасывается одна,
+     * остальные записываются. При любой другой ошибке остаток пакета возвращается в очередь
+     * целиком и по порядку и будет повторён после паузы.
+     */
+    private boolean flushOneByOne(List<PendingWrite> batch) {
+        int written = 0;
+        int rejected = 0;
+        try (Connection conn = dbService.getConnection();
+             PreparedStatement saveStmt = conn.prepareStatement(SQL_SAVE_TOKEN);
+             PreparedStatement updateStmt = conn.prepareStatement(SQL_UPDATE_TOKEN);
+             PreparedStatement deleteStmt = conn.prepareStatement(SQL_DELETE_TOKEN)) {
+            for (int i = 0; i < batch.size(); i++) {
+                PendingWrite write = batch.get(i);
+                try {
+                    bind(write, statementFor(write.kind, saveStmt, updateStmt, deleteStmt)).executeUpdate();
+                    written++;
+                } catch (SQLNonTransientException e) {
+                    rejected++;
+                    logger.severe("❌ Изменение токена (" + write.kind + ") отклонено БД и отброшено: " + e.getMessage());
+                } catch (SQLException e) {
+                    logger.log(Level.SEVERE, "❌ Ошибка записи токена в БД: " + e.getMessage(), e);
+                    requeue(batch.subList(i, batch.size()));
+                    return false;
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            // Нет соединения или запросы не подготовились — возвращаем ещё не обработанные строки
+            logger.log(Level.SEVERE, "❌ Ошибка записи токенов в БД: " + e.getMessage(), e);
+            requeue(batch.subList(written + rejected, batch.size()));
             return false;
         }
+        logger.fine("💾 Токенов записано построчно: " + written + ", отброшено: " + rejected);
+        return true;
     }
 
-    public boolean updateToken(String newToken, String userId, LocalDateTime issuedAt, LocalDateTime expiresAt) {
+    // Нет связи с БД или пул исчерпан — построчная запись тоже не пройдёт
+    private static boolean isConnectionFailure(Exception e) {
+        return e instanceof RuntimeException
+                || e instanceof SQLRecoverableException
+                || e instanceof SQLTransientConnectionException
+                || e instanceof SQLNonTransientConnectionException;
+    }
+
+    /**
+     * Возвращает изменения в голову очереди. Они не отбрасываются по числу попыток: потерянный
+     * DELETE оставил бы отозванный токен в таблице (и прогрев вернул бы его после перезапуска),
+     * потерянный SAVE — разлогинил бы пользователя. Отбрасываются только строки, которые БД
+     * отвергла как {@link SQLNonTransientException} (см. {@link #flushOneByOne}).
+     */
+    private void requeue(List<PendingWrite> writes) {
+        // С конца в голову очереди: повтор идёт впереди новых изменений в прежнем порядке.
+        // Очередь разбирает только поток записи, так что между offerFirst никто не вклинится
+        for (int i = writes.size() - 1; i >= 0; i--) {
+            pendingWrites.offerFirst(writes.get(i));
+        }
+    }
+
+    private static PreparedStatement bind(PendingWrite write, PreparedStatement stmt) throws SQLException {
+        switch (write.kind) {
+            case SAVE:
+                stmt.setString(1, write.token);
+                stmt.setString(2, write.userId);
+                stmt.setTimestamp(3, write.issuedAt);
+                stmt.setTimestamp(4, write.expiresAt);
+                break;
+            case UPDATE:
+                stmt.setString(1, write.token);
+                stmt.setTimestamp(2, write.issuedAt);
+                stmt.setTimestamp(3, write.expiresAt);
+                stmt.setString(4, write.userId);
+                break;
+            case DELETE:
+                stmt.setString(1, write.token);
+                break;
+        }
+        return stmt;
+    }
+
+    private static PreparedStatement statementFor(PendingWrite.Kind kind, PreparedStatement saveStmt,
+                                                  PreparedStatement updateStmt, PreparedStatement deleteStmt) {
+        switch (kind) {
+            case SAVE:
+                return saveStmt;
+            case UPDATE:
+                return updateStmt;
+            default:
+                return deleteStmt;
+        }
+    }
+
+    // ---------------- Запасной путь до прогрева ----------------
+
+    private boolean isTokenValidInDb(String token, String userId) {
         try (Connection conn = dbService.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(SQL_UPDATE_TOKEN)) {
-            stmt.setString(1, newToken);
-            stmt.setTimestamp(2, Timestamp.valueOf(issuedAt));
-            stmt.setTimestamp(3, Timestamp.valueOf(expiresAt));
-            stmt.setString(4, userId);
-            int rows = stmt.executeUpdate();
-            logger.info("✅ Токен обновлен для user_id=" + userId);
-            return rows > 0;
+             PreparedStatement stmt = conn.prepareStatement(SQL_IS_TOKEN_VALID)) {
+            stmt.setString(1, token);
+            stmt.setString(2, userId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) > 0;
+            }
         } catch (SQLException e) {
-            logger.severe("❌ Ошибка при обновлении токена: " + e.getMessage());
+            logger.severe("❌ Ошибка при проверке токена: " + e.getMessage());
             return false;
         }
     }
 
-    public String getToken(String userId) {
+    private String getTokenFromDb(String userId) {
         try (Connection conn = dbService.getConnection();
              PreparedStatement stmt = conn.prepareStatement(SQL_GET_TOKEN)) {
             stmt.setString(1, userId);
             try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    String token = rs.getString("access_token_id");
-                    Timestamp expiresAtTimestamp = rs.getTimestamp("expires_at");
-                    LocalDateTime expiresAt = expiresAtTimestamp.toLocalDateTime();
-                    logger.info("✅ Действующий токен найден: " + token +
-                            ", срок действия до: " + expiresAt);
-                    return token;
-                }
-                logger.info("🔍 Токен не найден. Будет создан новый токен.");
-                return null;
+                return rs.next() ? rs.getString("access_token_id") : null;
             }
         } catch (SQLException e) {
             logger.severe("❌ Ошибка при получении токена: " + e.getMessage());
@@ -123,16 +537,49 @@ public class AccessTokenDao {
         }
     }
 
-    public boolean deleteToken(String token) {
-        try (Connection conn = dbService.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(SQL_DELETE_TOKEN)) {
-            stmt.setString(1, token);
-            int rows = stmt.executeUpdate();
-            logger.info("✅ Токен удалён: " + token);
-            return rows > 0;
-        } catch (SQLException e) {
-            logger.severe("❌ Ошибка при удалении токена: " + e.getMessage());
-            return false;
+    private static final class TokenEntry {
+        final String token;
+        final String userId;
+        final long expiresAtMillis;
+
+        TokenEntry(String token, String userId, long expiresAtMillis) {
+            this.token = token;
+            this.userId = userId;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        boolean isAlive(long nowMillis) {
+            return expiresAtMillis > nowMillis;
+        }
+    }
+
+    private static final class PendingWrite {
+        enum Kind { SAVE, UPDATE, DELETE }
+
+        final Kind kind;
+        final String token;
+        final String userId;
+        final Timestamp issuedAt;
+        final Timestamp expiresAt;
+
+        private PendingWrite(Kind kind, String token, String userId, Timestamp issuedAt, Timestamp expiresAt) {
+            this.kind = kind;
+            this.token = token;
+            this.userId = userId;
+            this.issuedAt = issuedAt;
+            this.expiresAt = expiresAt;
+        }
+
+        static PendingWrite save(String token, String userId, Timestamp issuedAt, Timestamp expiresAt) {
+            return new PendingWrite(Kind.SAVE, token, userId, issuedAt, expiresAt);
+        }
+
+        static PendingWrite update(String token, String userId, Timestamp issuedAt, Timestamp expiresAt) {
+            return new PendingWrite(Kind.UPDATE, token, userId, issuedAt, expiresAt);
+        }
+
+        static PendingWrite delete(String token) {
+            return new PendingWrite(Kind.DELETE, token, null, null, null);
         }
     }
-}
\ No newline at end of file
+}
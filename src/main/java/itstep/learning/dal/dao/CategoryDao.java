@@ -3,83 +3,217 @@ package itstep.learning.dal.dao;
 
 import itstep.learning.dal.dto.Category;
 import itstep.learning.services.DbService.DbService;
+import itstep.learning.services.cache.CatalogVersion;
+import itstep.learning.services.config.ConfigService;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+/**
+ * Категорії змінюються вкрай рідко, тому всі читання обслуговуються з кешу в пам'яті
+ * (індекси за UUID та slug). Кеш перечитується після TTL ({@code cache.categories.ttlSeconds},
+ * 0 — без обмеження) або після {@link #invalidate()}.
+ * <p>
+ * Якщо БД недоступна, віддається застарілий знімок, а повторне читання відкладається на
+ * {@code cache.categories.retryAfterMs}. Коли знімка немає зовсім, методи читання кидають
+ * {@link IllegalStateException} — сервлет відповідає 500, а не порожнім списком.
+ */
 @Singleton
 public class CategoryDao {
 
     private final DbService dbService;
     private final Logger logger;
+    private final long ttlMs;
+    private final long retryAfterMs;
+    private final CatalogVersion catalogVersion;
+    private volatile Snapshot cache;
+    // Лічильник invalidate(): знімок, прочитаний до останнього скидання, вважається застарілим
+    private final AtomicLong generation = new AtomicLong();
+    // Після невдалого читання до цього моменту (мс) БД не чіпаємо — запити не стоять у черзі на lock
+    private volatile long retryAt;
 
     @Inject
-    public CategoryDao(DbService dbService, Logger logger) {
+    public CategoryDao(DbService dbService, Logger logger, ConfigService configService, CatalogVersion catalogVersion) {
         this.dbService = dbService;
         this.logger = logger;
+        this.catalogVersion = catalogVersion;
+        this.ttlMs = configService.getLong("cache.categories.ttlSeconds", 300) * 1000;
+        this.retryAfterMs = Math.max(0, configService.getLong("cache.categories.retryAfterMs", 5000));
     }
 
-    // ✅ Отримання всіх категорій
+    // ✅ Отримання всіх категорій (з кешу)
     public List<Category> getAllCategories() {
-        List<Category> categories = new ArrayList<>();
+        Snapshot snapshot = snapshot();
+        List<Category> categories = new ArrayList<>(snapshot.all.size());
+        for (Category category : snapshot.all) {
+            categories.add(copy(category));
+        }
+        logger.fine(() -> "📥 Категорії з кешу: " + categories.size());
+        return categories;
+    }
+
+
+    // ✅ Отримання категорії за ID (з кешу)
+    public Category getCategoryById(UUID categoryId) {
+        if (categoryId == null) {
+            return null;
+        }
+        Category category = snapshot().byId.get(categoryId);
+        if (category == null) {
+            logger.warning("⚠️ Категорія з ID " + categoryId + " не знайдена.");
+            return null;
+        }
+        return copy(category);
+    }
+
+    /**
+     * Скидає кеш категорій — наступне звернення перечитає таблицю — і піднімає версію каталогу.
+     * Викликати після будь-якої зміни таблиці categories.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        cache = null;
+        // Запис щойно пройшов — БД доступна, чекати кінця паузи не потрібно
+        retryAt = 0;
+        catalogVersion.bump();
+        logger.info("🧹 Кеш категорій скинуто");
+    }
+
+    // Повертає актуальний знімок, перечитуючи таблицю лише після закінчення TTL або invalidate()
+    private Snapshot snapshot() {
+        Snapshot current = cache;
+        if (isFresh(current)) {
+            return current;
+        }
+        if (System.currentTimeMillis() < retryAt) {
+            return staleOrFail(current);
+        }
+        synchronized (this) {
+            current = cache;
+            if (!isFresh(current)) {
+                // Поки чекали на lock, попереднє читання могло впасти — не повторюємо його одразу
+                if (System.currentTimeMillis() < retryAt) {
+                    return staleOrFail(current);
+                }
+                // Покоління береться до читання: invalidate() під час запиту знецінить цей знімок
+                Snapshot loaded = loadAll(generation.get());
+                if (loaded == null) {
+                    retryAt = System.currentTimeMillis() + retryAfterMs;
+                    return staleOrFail(current);
+                }
+                retryAt = 0;
+                if (current != null && !current.sameContent(loaded)) {
+                    // Таблицю змінили в обхід DAO — ETag каталогу теж має змінитися
+                    catalogVersion.bump();
+                    logger.info("🔄 Категорії змінились у БД, версію каталогу піднято");
+                }
+                cache = current = loaded;
+            }
+            return current;
+        }
+    }
+
+    // БД недоступна: віддаємо застарілі дані, якщо вони є
+    private static Snapshot staleOrFail(Snapshot stale) {
+        if (stale == null) {
+            throw new IllegalStateException("Категорії недоступні: не вдалося прочитати таблицю categories");
+        }
+        return stale;
+    }
+
+    private boolean isFresh(Snapshot snapshot) {
+        return snapshot != null && snapshot.generation == generation.get() && !snapshot.isExpired(ttlMs);
+    }
+
+    private Snapshot loadAll(long loadGeneration) {
         String sql = "SELECT * FROM categories";
 
-        logger.info("📥 Отримання всіх категорій...");
+        logger.info("📥 Завантаження категорій у кеш...");
 
         try (Connection connection = dbService.getConnection();
              Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
-            logger.info("📄 Виконання SQL запиту:\n" + sql);
-
+            List<Category> all = new ArrayList<>();
+            Map<UUID, Category> byId = new HashMap<>();
+            Map<String, Category> bySlug = new HashMap<>();
             while (rs.next()) {
                 Category category = Category.fromResultSet(rs);
-                categories.add(category);
-                logger.info("✅ Категорія знайдена: " + category.getCategoryTitle() + " | ID: " + category.getCategoryId());
+                all.add(category);
+                byId.put(category.getCategoryId(), category);
+                bySlug.put(category.getCategorySlug(), category);
             }
 
-            logger.info("✅ Загалом отримано " + categories.size() + " категорій.");
+            logger.info("✅ У кеш завантажено " + all.size() + " категорій (TTL " + ttlMs + " ms)");
+            return new Snapshot(List.copyOf(all), Map.copyOf(byId), Map.copyOf(bySlug),
+                    System.currentTimeMillis(), loadGeneration);
 
-        } catch (SQLException e) {
+        } catch (SQLException | RuntimeException e) {
             logger.log(Level.SEVERE, "❌ Помилка при отриманні категорій: " + e.getMessage(), e);
+            return null;
         }
-
-        return categories;
     }
 
+    // Кеш зберігає власні екземпляри, назовні віддаються копії (сервлети змінюють imageId)
+    private static Category copy(Category category) {
+        Date deleteMoment = category.getDeleteMoment();
+        return new Category(
+                category.getCategoryId(),
+                category.getCategorySlug(),
+                category.getCategoryTitle(),
+                category.getCategoryDescription(),
+                category.getCategoryImageId(),
+                deleteMoment == null ? null : new Date(deleteMoment.getTime()));
+    }
 
-    // ✅ Отримання категорії за ID
-    public Category getCategoryById(UUID categoryId) {
-        String sql = "SELECT * FROM categories WHERE category_id = ?";
-
-        logger.info("📥 Пошук категорії за ID: " + categoryId);
-
-        try (Connection connection = dbService.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(sql)) {
+    private static final class Snapshot {
+        private final List<Category> all;
+        private final Map<UUID, Category> byId;
+        private final Map<String, Category> bySlug;
+        private final long loadedAt;
+        private final long generation;
+
+        private Snapshot(List<Category> all, Map<UUID, Category> byId, Map<String, Category> bySlug,
+                         long loadedAt, long generation) {
+            this.all = all;
+            this.byId = byId;
+            this.bySlug = bySlug;
+            this.loadedAt = loadedAt;
+            this.generation = generation;
+        }
 
-            stmt.setString(1, categoryId.toString());
-            logger.info("📄 Виконання SQL запиту:\n" + sql);
+        private boolean isExpired(long ttlMs) {
+            return ttlMs > 0 && System.currentTimeMillis() - loadedAt > ttlMs;
+        }
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    logger.info("✅ Категорія знайдена: " + categoryId);
-                    return Category.fromResultSet(rs);
-                } else {
-                    logger.warning("⚠️ Категорія з ID " + categoryId + " не знайдена.");
+        private boolean sameContent(Snapshot other) {
+            if (all.size() != other.all.size()) {
+                return false;
+            }
+            for (Category category : all) {
+                Category same = other.byId.get(category.getCategoryId());
+                if (same == null
+                        || !Objects.equals(category.getCategorySlug(), same.getCategorySlug())
+                        || !Objects.equals(category.getCategoryTitle(), same.getCategoryTitle())
+                        || !Objects.equals(category.getCategoryDescription(), same.getCategoryDescription())
+                        || !Objects.equals(category.getCategoryImageId(), same.getCategoryImageId())
+                        || !Objects.equals(category.getDeleteMoment(), same.getDeleteMoment())) {
+                    return false;
                 }
             }
-
-        } catch (SQLException e) {
-            logger.log(Level.SEVERE, "❌ Помилка при отриманні категорії за ID: " + e.getMessage(), e);
+            return true;
         }
-
-        return null;
     }
 
     // ✅ Створення таблиці категорій
@@ -180,6 +314,7 @@ public class CategoryDao {
                 connection.commit();
                 logger.info("✅ Коміт успішно виконано.");
             }
+            invalidate();
 
             if (autoCommit) {
                 connection.setAutoCommit(true);
@@ -193,32 +328,17 @@ public class CategoryDao {
             return false;
         }
     }
-    // ✅ Отримання категорії за SLUG
+    // ✅ Отримання категорії за SLUG (з кешу)
     public Category getCategoryBySlug(String slug) {
-        String sql = "SELECT * FROM categories WHERE category_slug = ?";
-
-        logger.info("📥 Пошук категорії за SLUG: " + slug);
-
-        try (Connection connection = dbService.getConnection();
-             PreparedStatement stmt = connection.prepareStatement(sql)) {
-
-            stmt.setString(1, slug);
-            logger.info("📄 Виконання SQL запиту:\n" + sql);
-
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    logger.info("✅ Категорія знайдена за SLUG: " + slug);
-                    return Category.fromResultSet(rs);
-                } else {
-                    logger.warning("⚠️ Категорія з SLUG " + slug + " не знайдена.");
-                }
-            }
-
-        } catch (SQLException e) {
-            logger.log(Level.SEVERE, "❌ Помилка при отриманні категорії за SLUG: " + e.getMessage(), e);
+        if (slug == null) {
+            return null;
         }
-
-        return null;
+        Category category = snapshot().bySlug.get(slug);
+        if (category == null) {
+            logger.warning("⚠️ Категорія з SLUG " + slug + " не знайдена.");
+            return null;
+        }
+        return copy(category);
     }
 
 }
\ No newline at end of file
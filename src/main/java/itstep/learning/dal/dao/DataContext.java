@@ -13,17 +13,17 @@ import java.util.logging.Logger;
 
 @Singleton
 public class DataContext {
-    private final Connection connection;
+    private final DbService dbService;
     private final Logger logger;
     private final UserDao userDao;
     private AccessTokenDao accessTokenDao;
     private final CartDao cartDao;
     @Inject
-    public DataContext(DbService dbService, Logger logger) {
-        this.connection = dbService.getConnection(); // Отримання з'єднання з DbService
+    public DataContext(DbService dbService, UserDao userDao, Logger logger) {
+        this.dbService = dbService; // З'єднання беруться з пулу на кожну операцію
         this.logger = logger; // Логгер для відстеження подій
-        this.userDao = new UserDao(connection, logger);
-        this.cartDao = new CartDao(dbService, logger);// Передаємо логгер до UserDao
+        this.userDao = userDao;
+        this.cartDao = new CartDao(dbService, logger);
         logger.info("DataContext успішно ініціалізований.");
     }
 
@@ -76,7 +76,8 @@ public class DataContext {
                 "('admin', 'Administrator', true, true, true, true), " +
                 "('editor', 'Editor', false, true, true, false), " +
                 "('viewer', 'Viewer', false, true, false, false)";
-        try (Statement statement = connection.createStatement()) {
+        try (Connection connection = dbService.getConnection();
+             Statement statement = connection.createStatement()) {
             statement.executeUpdate(sql);
             logger.info("Роли успешно добавлены или уже существуют.");
             return true;
@@ -1,14 +1,21 @@
 package itstep.learning.dal.dao;
 
 import itstep.learning.dal.dto.CartItem;
+import itstep.learning.dal.dto.OrderCursor;
+import itstep.learning.dal.dto.OrderPage;
 import itstep.learning.models.Order;
 import itstep.learning.services.DbService.DbService;
+import itstep.learning.services.DbService.TransactionScope;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -46,8 +53,9 @@ public class OrdersDao {
             user_id CHAR(36) NOT NULL,
             total_price DOUBLE NOT NULL,
             status VARCHAR(20) DEFAULT 'NEW',
-            created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
-            updated_at DATETIME DEFAULT CURRENT_TIMESTAMP
+            created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+            updated_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+            INDEX idx_orders_user_created (user_id, created_at, order_id)
         ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
     """;
 
@@ -56,6 +64,32 @@ public class OrdersDao {
 
             stmt.executeUpdate(sql);
             logger.info("✅ Таблица 'orders' успешно создана или уже существует.");
+
+            // Для таблиц, созданных до появления постраничной выборки заказов пользователя
+            try (ResultSet rs = stmt.executeQuery("""
+                    SELECT 1 FROM information_schema.statistics
+                    WHERE table_schema = DATABASE() AND table_name = 'orders'
+                      AND index_name = 'idx_orders_user_created'
+                    """)) {
+                if (!rs.next()) {
+                    stmt.executeUpdate("ALTER TABLE orders ADD INDEX idx_orders_user_created (user_id, created_at, order_id)");
+                    logger.info("✅ Добавлен индекс idx_orders_user_created");
+                }
+            }
+
+            // created_at — часть курсора страниц: в старых таблицах колонка допускала NULL
+            try (ResultSet rs = stmt.executeQuery("""
+                    SELECT 1 FROM information_schema.columns
+                    WHERE table_schema = DATABASE() AND table_name = 'orders'
+                      AND column_name = 'created_at' AND is_nullable = 'YES'
+                    """)) {
+                if (rs.next()) {
+                    int fixed = stmt.executeUpdate(
+                            "UPDATE orders SET created_at = COALESCE(updated_at, NOW()) WHERE created_at IS NULL");
+                    stmt.executeUpdate("ALTER TABLE orders MODIFY created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP");
+                    logger.info("✅ orders.created_at переведена в NOT NULL (заполнено пустых: " + fixed + ")");
+                }
+            }
             return true;
 
         } catch (SQLException e) {
@@ -94,14 +128,15 @@ public class OrdersDao {
         }
     }
 
-    // ✅ Добавление заказа
+    // ✅ Добавление заказа: заказ и все его товары — одна транзакция
     public boolean createOrder(Order order) {
         String sql = """
             INSERT INTO orders (order_id, user_id, total_price, status, created_at, updated_at)
             VALUES (?, ?, ?, ?, ?, ?)
         """;
 
-        try (Connection connection = dbService.getConnection();
+        try (TransactionScope tx = TransactionScope.begin(dbService);
+             Connection connection = tx.getConnection();
              PreparedStatement stmt = connection.prepareStatement(sql)) {
 
             stmt.setString(1, order.getOrderId().toString());
@@ -113,35 +148,36 @@ public class OrdersDao {
 
             int rows = stmt.executeUpdate();
 
-            logger.info("✅ Заказ добавлен. Строк затронуто: " + rows);
-
             // После вставки заказа — добавляем товары
             saveOrderItems(order, connection);
 
+            tx.commit();
+            logger.info("✅ Заказ добавлен. Строк затронуто: " + rows + ", товаров: " + order.getItems().size());
+
             return rows > 0;
 
         } catch (SQLException e) {
+            // Незакоммиченная транзакция откатывается при закрытии scope
             logger.log(Level.SEVERE, "❌ Ошибка добавления заказа: " + e.getMessage(), e);
             return false;
         }
     }
 
-    // ✅ Получить список заказов пользователя
+    // ✅ Получить список заказов пользователя (товары подтягиваются пакетно)
     public List<Order> getOrdersByUserId(UUID userId) {
-        String sql = "SELECT * FROM orders WHERE user_id = ?";
+        String sql = "SELECT * FROM orders WHERE user_id = ? ORDER BY created_at DESC, order_id DESC";
         List<Order> orders = new ArrayList<>();
 
         try (Connection connection = dbService.getConnection();
              PreparedStatement stmt = connection.prepareStatement(sql)) {
 
             stmt.setString(1, userId.toString());
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                Order order = mapResultSetToOrder(rs);
-                order.setItems(getOrderItems(order.getOrderId(), connection)); // подтягиваем товары
-                orders.add(order);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    orders.add(mapResultSetToOrder(rs));
+                }
             }
+            loadOrderItems(orders, connection);
 
             logger.info("✅ Заказы пользователя получены: " + orders.size());
 
@@ -152,6 +188,62 @@ public class OrdersDao {
         return orders;
     }
 
+    /**
+     * Страница заказов пользователя, от новых к старым (keyset по created_at, order_id).
+     * Товары всей страницы загружаются одним запросом — всего два обращения к БД.
+     *
+     * @param cursor позиция предыдущей страницы или {@code null} для первой
+     * @return страница или {@code null} при ошибке БД — чтобы не спутать её с концом списка
+     */
+    public OrderPage getOrdersByUserId(UUID userId, OrderCursor cursor, int limit) {
+        String sql = "SELECT * FROM orders WHERE user_id = ? "
+                // Развёрнутая форма: сравнение кортежей (created_at, order_id) < (?, ?) MySQL не превращает в range
+                + (cursor != null ? "AND (created_at < ? OR (created_at = ? AND order_id < ?)) " : "")
+                + "ORDER BY created_at DESC, order_id DESC LIMIT ?";
+        List<Order> orders = new ArrayList<>();
+
+        try (Connection connection = dbService.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+
+            int paramIndex = 1;
+            stmt.setString(paramIndex++, userId.toString());
+            if (cursor != null) {
+                Timestamp createdAt = Timestamp.valueOf(cursor.getCreatedAt());
+                stmt.setTimestamp(paramIndex++, createdAt);
+                stmt.setTimestamp(paramIndex++, createdAt);
+                stmt.setString(paramIndex++, cursor.getOrderId().toString());
+            }
+            // Лишняя строка показывает, есть ли следующая страница
+            stmt.setInt(paramIndex, limit + 1);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    orders.add(mapResultSetToOrder(rs));
+                }
+            }
+
+            String next = null;
+            if (orders.size() > limit) {
+                orders.remove(limit);
+                Order last = orders.get(limit - 1);
+                if (last.getCreatedAt() != null) {
+                    next = new OrderCursor(last.getCreatedAt(), last.getOrderId()).encode();
+                } else {
+                    // Возможно только до перевода created_at в NOT NULL (см. createOrdersTable)
+                    logger.severe("❌ Заказ " + last.getOrderId() + " без created_at — следующая страница недоступна");
+                }
+            }
+            loadOrderItems(orders, connection);
+
+            logger.info("✅ Страница заказов пользователя: " + orders.size() + (next != null ? " (есть ещё)" : ""));
+            return new OrderPage(orders, next);
+
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "❌ Ошибка получения страницы заказов пользователя: " + e.getMessage(), e);
+            return null;
+        }
+    }
+
     // ✅ Приватные методы
     private Order mapResultSetToOrder(ResultSet rs) throws SQLException {
         return new Order(
@@ -159,59 +251,98 @@ public class OrdersDao {
                 UUID.fromString(rs.getString("user_id")),
                 rs.getDouble("total_price"),
                 rs.getString("status"),
-                rs.getTimestamp("created_at").toLocalDateTime(),
-                rs.getTimestamp("updated_at").toLocalDateTime(),
+                toLocalDateTime(rs.getTimestamp("created_at")),
+                toLocalDateTime(rs.getTimestamp("updated_at")),
                 new ArrayList<>() // items подтянем потом
         );
     }
 
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+
+    // Все товары одним пакетом; с rewriteBatchedStatements драйвер отправляет один multi-row INSERT
     private void saveOrderItems(Order order, Connection connection) throws SQLException {
         String sql = """
             INSERT INTO order_items (order_item_id, order_id, product_id, quantity, price)
             VALUES (?, ?, ?, ?, ?)
         """;
 
-        for (CartItem item : order.getItems()) {
-            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (CartItem item : order.getItems()) {
                 stmt.setString(1, UUID.randomUUID().toString());
                 stmt.setString(2, order.getOrderId().toString());
                 stmt.setString(3, item.getProductId().toString());
                 stmt.setInt(4, item.getQuantity());
                 stmt.setDouble(5, item.getCartItemPrice());
-
-                stmt.executeUpdate();
-                logger.info("✅ Товар добавлен в заказ: " + item.getProductId());
+                stmt.addBatch();
             }
+            stmt.executeBatch();
+            logger.fine("✅ Товары добавлены в заказ пакетом: " + order.getItems().size());
         }
     }
 
-    private List<CartItem> getOrderItems(UUID orderId, Connection connection) throws SQLException {
-        String sql = "SELECT * FROM order_items WHERE order_id = ?";
-        List<CartItem> items = new ArrayList<>();
+    // Размер пакета IN (...): по числу параметров округляем вверх до степени двойки,
+    // чтобы кеш prepared statements видел лишь несколько вариантов SQL
+    private static final int ITEMS_BATCH_SIZE = 512;
+
+    /**
+     * Загружает товары для всех переданных заказов запросами {@code WHERE order_id IN (...)}
+     * вместо отдельного запроса на каждый заказ.
+     */
+    private void loadOrderItems(List<Order> orders, Connection connection) throws SQLException {
+        if (orders.isEmpty()) {
+            return;
+        }
+        Map<UUID, Order> byId = new HashMap<>();
+        for (Order order : orders) {
+            order.setItems(new ArrayList<>());
+            byId.put(order.getOrderId(), order);
+        }
+        List<UUID> ids = new ArrayList<>(byId.keySet());
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, orderId.toString());
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                CartItem item = new CartItem(
-                        UUID.fromString(rs.getString("order_item_id")),
-                        UUID.fromString(rs.getString("order_id")),
-                        UUID.fromString(rs.getString("product_id")),
-                        null, // actionId если есть
-                        rs.getDouble("price"),
-                        rs.getShort("quantity")
-                );
-                items.add(item);
-            }
+        for (int from = 0; from < ids.size(); from += ITEMS_BATCH_SIZE) {
+            List<UUID> chunk = ids.subList(from, Math.min(from + ITEMS_BATCH_SIZE, ids.size()));
+            int params = Math.min(ITEMS_BATCH_SIZE, Integer.highestOneBit(chunk.size() * 2 - 1));
+            String sql = "SELECT * FROM order_items WHERE order_id IN ("
+                    + String.join(",", Collections.nCopies(params, "?")) + ")";
 
-            logger.info("✅ Товары заказа получены: " + items.size());
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                for (int i = 0; i < params; i++) {
+                    // Хвост заполняем последним id — дубликаты в IN ничего не меняют
+                    stmt.setString(i + 1, chunk.get(Math.min(i, chunk.size() - 1)).toString());
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        CartItem item = mapResultSetToOrderItem(rs);
+                        byId.get(item.getCartId()).getItems().add(item);
+                    }
+                }
+            }
         }
 
-        return items;
+        logger.info("✅ Товары для " + orders.size() + " заказов получены пакетно");
+    }
+
+    private CartItem mapResultSetToOrderItem(ResultSet rs) throws SQLException {
+        return new CartItem(
+                UUID.fromString(rs.getString("order_item_id")),
+                UUID.fromString(rs.getString("order_id")),
+                UUID.fromString(rs.getString("product_id")),
+                null, // actionId если есть
+                rs.getDouble("price"),
+                rs.getShort("quantity")
+        );
     }
 
     public List<Order> getAllOrders() {
+        return getAllOrders(false);
+    }
+
+    /**
+     * @param includeItems подтянуть товары заказов (пакетными IN-запросами)
+     */
+    public List<Order> getAllOrders(boolean includeItems) {
         String sql = "SELECT * FROM orders";
         List<Order> orders = new ArrayList<>();
 
@@ -222,12 +353,12 @@ public class OrdersDao {
             try (Statement stmt = connection.createStatement();
                  ResultSet rs = stmt.executeQuery(sql)) {
                 while (rs.next()) {
-                    Order order = mapResultSetToOrder(rs);
-                    // Если необходимо подтягивать товары заказа, можно добавить:
-                    // order.setItems(getOrderItems(order.getOrderId(), connection));
-                    orders.add(order);
+                    orders.add(mapResultSetToOrder(rs));
                 }
             }
+            if (includeItems) {
+                loadOrderItems(orders, connection);
+            }
             logger.info("✅ Получено заказов: " + orders.size());
         } catch (SQLException e) {
             logger.log(Level.SEVERE, "❌ Ошибка при получении всех заказов: " + e.getMessage(), e);
@@ -2,10 +2,17 @@ package itstep.learning.dal.dao;
 
 import itstep.learning.dal.dto.Category;
 import itstep.learning.dal.dto.Product;
+import itstep.learning.dal.dto.ProductCursor;
+import itstep.learning.dal.dto.ProductPage;
 import itstep.learning.services.DbService.DbService;
+import itstep.learning.services.cache.CacheStats;
+import itstep.learning.services.cache.CatalogVersion;
+import itstep.learning.services.cache.TinyLfuCache;
+import itstep.learning.services.config.ConfigService;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 
+import java.io.IOException;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -16,13 +23,30 @@ import java.util.logging.Logger;
 @Singleton
 public class ProductDao {
 
+    // Верхня межа сторінки keyset-пагінації, як і для списку користувачів
+    public static final int MAX_PAGE_SIZE = 500;
+
     private final DbService dbService;
     private final Logger logger;
+    // Кеш продуктів за ID (W-TinyLFU); зберігає власні копії, назовні віддаються копії
+    private final TinyLfuCache<UUID, Product> productCache;
+    private final int exportNetWriteTimeoutSeconds;
+    private final CatalogVersion catalogVersion;
 
     @Inject
-    public ProductDao(DbService dbService, Logger logger) {
+    public ProductDao(DbService dbService, Logger logger, ConfigService configService, CatalogVersion catalogVersion) {
         this.dbService = dbService;
         this.logger = logger;
+        this.catalogVersion = catalogVersion;
+        this.productCache = new TinyLfuCache<>(configService.getInt("cache.products.maxSize", 1000));
+        this.exportNetWriteTimeoutSeconds = Math.max(60, configService.getInt("products.export.netWriteTimeoutSeconds", 600));
+    }
+
+    /**
+     * Статистика кешу продуктів: hit ratio, кількість витіснень, середній час завантаження з БД.
+     */
+    public CacheStats getCacheStats() {
+        return productCache.stats();
     }
     public boolean installTables() {
         String sql = "CREATE TABLE IF NOT EXISTS products (" +
@@ -34,6 +58,9 @@ public class ProductDao {
                 "stock INT NOT NULL, " +
                 "category_id CHAR(36) NOT NULL, " +
                 "image_id VARCHAR(64), " +
+                "INDEX idx_products_name_id (name, product_id), " +
+                "INDEX idx_products_category_name_id (category_id, name, product_id), " +
+                "FULLTEXT INDEX ft_products_search (name, description, code), " +
                 "FOREIGN KEY (category_id) REFERENCES categories(category_id) ON DELETE CASCADE" +
                 ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;";
 
@@ -44,6 +71,11 @@ public class ProductDao {
 
             statement.executeUpdate(sql);
             logger.info("✅ Таблиця 'products' створена або вже існує");
+
+            // Для таблиць, створених до появи keyset-пагінації та повнотекстового пошуку
+            ensureIndex(connection, "idx_products_name_id", "INDEX (name, product_id)");
+            ensureIndex(connection, "idx_products_category_name_id", "INDEX (category_id, name, product_id)");
+            ensureIndex(connection, "ft_products_search", "FULLTEXT INDEX (name, description, code)");
             return true;
 
         } catch (SQLException e) {
@@ -91,6 +123,8 @@ public class ProductDao {
 
             if (affectedRows > 0) {
                 logger.info("✅ Продукт оновлено успішно: " + product.getProductId());
+                productCache.put(product.getProductId(), copyOf(product));
+                catalogVersion.bump();
                 return true;
             } else {
                 logger.warning("⚠️ Продукт не оновлено (ID не знайдено?): " + product.getProductId());
@@ -117,7 +151,7 @@ public class ProductDao {
             stmt.setInt(2, limit);
             stmt.setInt(3, offset);
 
-            logger.info("📄 SQL для пагінованого вибору по категорії:\n" + sql);
+            logger.fine(() -> "📄 SQL для пагінованого вибору по категорії:\n" + sql);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
@@ -131,6 +165,87 @@ public class ProductDao {
 
         return products;
     }
+    // ================================
+    // ===== KEYSET (CURSOR) PAGING ===
+    // ================================
+    /**
+     * Сторінка продуктів, упорядкованих за (name, product_id), що йдуть після {@code after}.
+     * На відміну від LIMIT/OFFSET вартість не залежить від глибини сторінки —
+     * запит одразу стає на позицію в індексі idx_products_name_id / idx_products_category_name_id.
+     *
+     * @param categoryId обмеження категорією або {@code null}
+     * @param after      позиція попередньої сторінки або {@code null} для першої
+     * @param limit      розмір сторінки, обмежується діапазоном 1..{@value #MAX_PAGE_SIZE}
+     * @return сторінка або {@code null} при помилці БД — щоб її не сплутати з кінцем даних
+     */
+    public ProductPage getProductsAfter(UUID categoryId, ProductCursor after, int limit) {
+        limit = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<Product> products = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT * FROM products WHERE 1=1 ");
+        if (categoryId != null) {
+            sql.append("AND category_id = ? ");
+        }
+        if (after != null) {
+            // Розгорнута форма: порівняння кортежів (name, product_id) > (?, ?) MySQL не перетворює на range
+            sql.append("AND (name > ? OR (name = ? AND product_id > ?)) ");
+        }
+        sql.append("ORDER BY name ASC, product_id ASC LIMIT ?");
+
+        try (Connection connection = dbService.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql.toString())) {
+
+            int paramIndex = 1;
+            if (categoryId != null) {
+                stmt.setString(paramIndex++, categoryId.toString());
+            }
+            if (after != null) {
+                stmt.setString(paramIndex++, after.getName());
+                stmt.setString(paramIndex++, after.getName());
+                stmt.setString(paramIndex++, after.getProductId().toString());
+            }
+            // Зайвий рядок показує, чи є наступна сторінка
+            stmt.setInt(paramIndex, limit + 1);
+
+            logger.fine(() -> "📄 SQL keyset-пагінації продуктів: " + sql);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    products.add(Product.fromResultSet(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "❌ Помилка при отриманні продуктів (keyset): " + e.getMessage(), e);
+            return null;
+        }
+
+        String next = null;
+        if (products.size() > limit) {
+            products.remove(limit);
+            next = ProductCursor.of(products.get(limit - 1)).encode();
+        }
+        return new ProductPage(products, next);
+    }
+
+    // definition: "INDEX (...)" або "FULLTEXT INDEX (...)"; ім'я індексу підставляється перед дужками
+    private void ensureIndex(Connection connection, String indexName, String definition) throws SQLException {
+        String checkSql = "SELECT 1 FROM information_schema.statistics " +
+                "WHERE table_schema = DATABASE() AND table_name = 'products' AND index_name = ?";
+        try (PreparedStatement check = connection.prepareStatement(checkSql)) {
+            check.setString(1, indexName);
+            try (ResultSet rs = check.executeQuery()) {
+                if (rs.next()) {
+                    return;
+                }
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            String ddl = "ALTER TABLE products ADD " + definition.replace("INDEX (", "INDEX " + indexName + " (");
+            statement.executeUpdate(ddl);
+            logger.info("✅ Додано індекс: " + ddl);
+        }
+    }
+
     public boolean addProduct(Product product) {
         String sql = "INSERT INTO products (product_id, name, description, price, code, stock, category_id, image_id) " +
                 "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
@@ -172,6 +287,12 @@ public class ProductDao {
             int rowsAffected = stmt.executeUpdate();
             logger.info("✅ Записано рядків: " + rowsAffected);
 
+            if (rowsAffected > 0) {
+                Product cached = copyOf(product);
+                cached.setImageId(product.getImageId() != null ? product.getImageId() : "");
+                productCache.put(cached.getProductId(), cached);
+                catalogVersion.bump();
+            }
             return rowsAffected > 0;
 
         } catch (SQLException e) {
@@ -187,21 +308,21 @@ public class ProductDao {
     public boolean existsByCode(String code) {
         String sql = "SELECT 1 FROM products WHERE code = ?";
 
-        logger.info("🔍 Перевірка існування продукту з кодом: " + code);
+        logger.fine(() -> "🔍 Перевірка існування продукту з кодом: " + code);
 
         try (Connection connection = dbService.getConnection();
              PreparedStatement stmt = connection.prepareStatement(sql)) {
 
             stmt.setString(1, code);
 
-            logger.info("📄 Виконання SQL exists by code:\n" + sql);
+            logger.fine(() -> "📄 Виконання SQL exists by code:\n" + sql);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 boolean exists = rs.next();
                 if (exists) {
-                    logger.info("⚠️ Продукт із кодом '" + code + "' існує");
+                    logger.fine(() -> "⚠️ Продукт із кодом '" + code + "' існує");
                 } else {
-                    logger.info("✅ Код '" + code + "' вільний");
+                    logger.fine(() -> "✅ Код '" + code + "' вільний");
                 }
                 return exists;
             }
@@ -216,21 +337,26 @@ public class ProductDao {
     // ===== GET PRODUCT BY ID ===
     // ========================
     public Product getProductById(UUID productId) {
+        Product product = productCache.get(productId, this::loadProductById);
+        return product == null ? null : copyOf(product);
+    }
+
+    private Product loadProductById(UUID productId) {
         String sql = "SELECT * FROM products WHERE product_id = ?";
 
-        logger.info("🔍 Пошук продукту за ID: " + productId);
+        logger.fine(() -> "🔍 Пошук продукту за ID: " + productId);
 
         try (Connection connection = dbService.getConnection();
              PreparedStatement stmt = connection.prepareStatement(sql)) {
 
             stmt.setString(1, productId.toString());
 
-            logger.info("📄 Виконання SQL get by ID:\n" + sql);
+            logger.fine(() -> "📄 Виконання SQL get by ID:\n" + sql);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
                     Product product = Product.fromResultSet(rs);
-                    logger.info("✅ Продукт знайдено: " + product);
+                    logger.fine(() -> "✅ Продукт знайдено: " + product);
                     return product;
                 } else {
                     logger.warning("⚠️ Продукт з ID " + productId + " не знайдено.");
@@ -261,7 +387,9 @@ public class ProductDao {
 
             int affectedRows = stmt.executeUpdate();
 
+            productCache.invalidate(productId);
             if (affectedRows > 0) {
+                catalogVersion.bump();
                 logger.info("✅ Продукт видалено: " + productId);
                 return true;
             } else {
@@ -274,6 +402,10 @@ public class ProductDao {
             return false;
         }
     }
+
+    /**
+     * @return сторінка або {@code null} при помилці БД — щоб її не сплутати з порожнім результатом
+     */
     public List<Product> getProductsPaged(int limit, int offset, String search) {
         List<Product> products = new ArrayList<>();
         String sql = "SELECT * FROM products WHERE 1=1 ";
@@ -297,7 +429,9 @@ public class ProductDao {
             stmt.setInt(paramIndex++, limit);
             stmt.setInt(paramIndex, offset);
 
-            logger.info("📄 SQL запит до products з пошуком або пагінацією: " + sql);
+            if (logger.isLoggable(Level.FINE)) {
+                logger.fine("📄 SQL запит до products з пошуком або пагінацією: " + sql);
+            }
 
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
@@ -307,13 +441,83 @@ public class ProductDao {
 
         } catch (SQLException e) {
             logger.log(Level.SEVERE, "❌ Помилка при отриманні продуктів (paged): " + e.getMessage(), e);
+            return null;
         }
 
         return products;
     }
+    // ==============================
+    // ===== FULL-TEXT SEARCH =======
+    // ==============================
+    // innodb_ft_min_token_size за замовчуванням — коротші слова FULLTEXT-індекс не містить
+    private static final int FT_MIN_TOKEN_SIZE = 3;
+
+    /**
+     * Повнотекстовий пошук по name, description та code (індекс ft_products_search).
+     * Кожне слово запиту обов'язкове і шукається як префікс ("+лампа* +скл*"),
+     * результати впорядковані за релевантністю MySQL.
+     * Якщо в запиті немає жодного слова довжиною від {@value #FT_MIN_TOKEN_SIZE} символів,
+     * використовується старий LIKE-пошук.
+     *
+     * @return результати або {@code null} при помилці БД (зокрема зламаного FULLTEXT-індексу),
+     *         щоб клієнт отримав 500, а не «нічого не знайдено»
+     */
+    public List<Product> searchProducts(String search, int limit, int offset) {
+        String booleanQuery = toBooleanQuery(search);
+        if (booleanQuery.isEmpty()) {
+            return getProductsPaged(limit, offset, search);
+        }
+
+        List<Product> products = new ArrayList<>();
+        String sql = "SELECT *, MATCH(name, description, code) AGAINST (? IN BOOLEAN MODE) AS relevance " +
+                "FROM products " +
+                "WHERE MATCH(name, description, code) AGAINST (? IN BOOLEAN MODE) " +
+                "ORDER BY relevance DESC, name ASC LIMIT ? OFFSET ?";
+
+        try (Connection connection = dbService.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+
+            stmt.setString(1, booleanQuery);
+            stmt.setString(2, booleanQuery);
+            stmt.setInt(3, limit);
+            stmt.setInt(4, offset);
+
+            logger.fine(() -> "🔍 Повнотекстовий пошук продуктів: " + booleanQuery);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    products.add(Product.fromResultSet(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "❌ Помилка повнотекстового пошуку продуктів: " + e.getMessage(), e);
+            return null;
+        }
+
+        return products;
+    }
+
+    // Слова запиту без операторів boolean mode, кожне — обов'язковий префікс
+    static String toBooleanQuery(String search) {
+        if (search == null) {
+            return "";
+        }
+        StringBuilder query = new StringBuilder();
+        for (String word : search.split("[^\\p{L}\\p{N}]+")) {
+            if (word.length() >= FT_MIN_TOKEN_SIZE) {
+                if (query.length() > 0) {
+                    query.append(' ');
+                }
+                query.append('+').append(word).append('*');
+            }
+        }
+        return query.toString();
+    }
+
     public Category getCategoryBySlug(String slug) {
         String sql = "SELECT * FROM categories WHERE category_slug = ?";
-        logger.info("🔍 Виконання пошуку категорії по slug: " + slug);
+        logger.fine(() -> "🔍 Виконання пошуку категорії по slug: " + slug);
 
         try (Connection connection = dbService.getConnection();
              PreparedStatement stmt = connection.prepareStatement(sql)) {
@@ -322,7 +526,7 @@ public class ProductDao {
 
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    logger.info("✅ Категорія знайдена по slug: " + slug);
+                    logger.fine(() -> "✅ Категорія знайдена по slug: " + slug);
                     return Category.fromResultSet(rs);
                 } else {
                     logger.warning("⚠️ Категорія зі slug " + slug + " не знайдена.");
@@ -343,21 +547,21 @@ public class ProductDao {
         List<Product> products = new ArrayList<>();
         String sql = "SELECT * FROM products ORDER BY name ASC";
 
-        logger.info("📥 Отримання всіх продуктів...");
+        logger.fine("📥 Отримання всіх продуктів...");
 
         try (Connection connection = dbService.getConnection();
              Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
 
-            logger.info("📄 Виконання SQL get all:\n" + sql);
+            logger.fine(() -> "📄 Виконання SQL get all:\n" + sql);
 
             while (rs.next()) {
                 Product product = Product.fromResultSet(rs);
                 products.add(product);
-                logger.info("✅ Завантажено продукт: " + product);
+                logger.fine(() -> "✅ Завантажено продукт: " + product);
             }
 
-            logger.info("✅ Кількість продуктів: " + products.size());
+            logger.fine(() -> "✅ Кількість продуктів: " + products.size());
 
         } catch (SQLException e) {
             logger.log(Level.SEVERE, "❌ Помилка при отриманні всіх продуктів: " + e.getMessage(), e);
@@ -365,4 +569,76 @@ public class ProductDao {
 
         return products;
     }
+
+    // ========================
+    // ===== STREAM ALL PRODUCTS ===
+    // ========================
+
+    /**
+     * Потокове читання всіх продуктів для експорту. {@code fetchSize=Integer.MIN_VALUE} вмикає
+     * у MySQL Connector/J порядковий режим: драйвер тримає в пам'яті один рядок, а не всю вибірку.
+     * Порядок {@code name} віддається індексом {@code idx_products_name_id}, без filesort.
+     * <p>
+     * На відміну від інших методів помилки не ковтаються: до моменту збою частина відповіді
+     * вже може бути відправлена, і вирішувати, що з нею робити, має викликач.
+     */
+    public void streamAllProducts(ProductStreamHandler handler) throws SQLException, IOException {
+        String sql = "SELECT * FROM products ORDER BY name ASC";
+        logger.fine("📤 Потоковий експорт усіх продуктів...");
+
+        try (Connection connection = dbService.getConnection()) {
+            // Повільний клієнт гальмує читання рядків, і сервер чекає на нас довше за стандартні 60 с
+            setNetWriteTimeout(connection, String.valueOf(exportNetWriteTimeoutSeconds));
+            try (PreparedStatement stmt = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(Integer.MIN_VALUE);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    try {
+                        handler.handle(rs);
+                    } catch (IOException e) {
+                        // Клієнт відключився: скасовуємо до закриття rs — інакше закриття
+                        // потокового ResultSet спершу дочитало б усі рядки каталогу
+                        cancelQuietly(stmt);
+                        throw e;
+                    }
+                }
+            } finally {
+                setNetWriteTimeout(connection, "DEFAULT");
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface ProductStreamHandler {
+        void handle(ResultSet rs) throws SQLException, IOException;
+    }
+
+    private void setNetWriteTimeout(Connection connection, String value) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET SESSION net_write_timeout = " + value);
+        }
+    }
+
+    private void cancelQuietly(Statement statement) {
+        try {
+            statement.cancel();
+        } catch (SQLException e) {
+            logger.log(Level.FINE, "Не вдалося скасувати потоковий запит: " + e.getMessage(), e);
+        }
+    }
+
+    private static Product copyOf(Product product) {
+        Product copy = new Product();
+        copy.setProductId(product.getProductId());
+        copy.setName(product.getName());
+        copy.setDescription(product.getDescription());
+        copy.setPrice(product.getPrice());
+        copy.setCode(product.getCode());
+        copy.setStock(product.getStock());
+        copy.setCategoryId(product.getCategoryId());
+        copy.setImageId(product.getImageId());
+        copy.setCategoryTitle(product.getCategoryTitle());
+        copy.setCategorySlug(product.getCategorySlug());
+        return copy;
+    }
 }
\ No newline at end of file
@@ -1,7 +1,10 @@
 package itstep.learning.dal.dao;
 
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
 import itstep.learning.models.User;
 import itstep.learning.services.DbService.DbService;
+import itstep.learning.services.DbService.TransactionScope;
 
 import java.sql.*;
 import java.util.*;
@@ -12,15 +15,19 @@ import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-
-
-
+/**
+ * DAO пользователей. Не хранит собственного Connection: каждая операция берёт соединение
+ * из пула через {@link TransactionScope#acquire(DbService)} и возвращает его по завершении,
+ * а внутри открытого {@link TransactionScope} все вызовы идут в одной транзакции.
+ */
+@Singleton
 public class UserDao {
-    private final Connection connection;
+    private final DbService dbService;
     private final Logger logger;
 
-    public UserDao(Connection connection, Logger logger) {
-        this.connection = connection;
+    @Inject
+    public UserDao(DbService dbService, Logger logger) {
+        this.dbService = dbService;
         // Если logger == null, используем логгер по умолчанию для UserDao
         this.logger = (logger != null) ? logger : Logger.getLogger(UserDao.class.getName());
     }
@@ -31,8 +38,10 @@ public class UserDao {
      */
     public void addUser(User user) throws SQLException {
         // 1) Проверяем, есть ли уже пользователь с таким логином
-        if (isLoginExists(user.getLogin())) {
-            throw new SQLException("❌ Логин уже используется: " + user.getLogin());
+        try (Connection connection = TransactionScope.acquire(dbService)) {
+            if (isLoginExists(connection, user.getLogin())) {
+                throw new SQLException("❌ Логин уже используется: " + user.getLogin());
+            }
         }
 
         // 2) Подготавливаем SQL
@@ -42,10 +51,10 @@ public class UserDao {
                 "VALUES (?, ?, ?, ?, ?, ?)";
 
         logger.info("🔎 [UserDao.addUser] Начинаем транзакцию для добавления пользователя: " + user);
-        // Отключаем auto-commit (создаём транзакцию)
-        connection.setAutoCommit(false);
-
-        try (PreparedStatement userStmt = connection.prepareStatement(userSql, Statement.RETURN_GENERATED_KEYS);
+        // Транзакция на собственном соединении из пула (или присоединяемся к уже открытой)
+        try (TransactionScope tx = TransactionScope.begin(dbService);
+             Connection connection = tx.getConnection();
+             PreparedStatement userStmt = connection.prepareStatement(userSql, Statement.RETURN_GENERATED_KEYS);
              PreparedStatement accessStmt = connection.prepareStatement(accessSql)) {
 
             // 🔎 LOG:
@@ -84,27 +93,25 @@ public class UserDao {
                 accessStmt.executeUpdate();
 
                 // 6) Сохраняем e‑mails (если они есть)
-                saveEmails(userId, user.getEmails());
+                saveEmails(connection, userId, user.getEmails());
                 // 7) Сохраняем телефоны (если они есть)
-                savePhones(userId, user.getPhones());
+                savePhones(connection, userId, user.getPhones());
                 // 8) Коммитим транзакцию
-                connection.commit();
+                tx.commit();
                 logger.info("✅ [UserDao.addUser] Пользователь добавлен успешно (user_id=" + userId + ") вместе с emails/phones.");
             }
 
         } catch (SQLException ex) {
+            // Откат выполняет TransactionScope.close(), если commit не был вызван
             logger.severe("❌ [UserDao.addUser] Ошибка при добавлении пользователя: " + ex.getMessage());
-            connection.rollback();
             throw ex;
-        } finally {
-            connection.setAutoCommit(true);
         }
     }
 
     /**
      * ✅ Сохранение e‑mail’ов в таблице user_emails
      */
-    private void saveEmails(long userId, List<String> emails) throws SQLException {
+    private void saveEmails(Connection connection, long userId, List<String> emails) throws SQLException {
         if (emails == null || emails.isEmpty()) {
             logger.info("   -> [saveEmails] Список emails пуст, ничего не сохраняем.");
             return;
@@ -112,20 +119,21 @@ public class UserDao {
         String emailSql = "INSERT INTO user_emails (user_id, email) VALUES (?, ?)";
         logger.info("   -> [saveEmails] user_id=" + userId + ", emails=" + emails);
 
+        // Один пакет на таблицу — с rewriteBatchedStatements это один multi-row INSERT
         try (PreparedStatement emailStmt = connection.prepareStatement(emailSql)) {
             for (String email : emails) {
-                logger.info("      INSERT email: " + email);
                 emailStmt.setLong(1, userId);
                 emailStmt.setString(2, email);
-                emailStmt.executeUpdate();
+                emailStmt.addBatch();
             }
+            emailStmt.executeBatch();
         }
     }
 
     /**
      * ✅ Сохранение телефонов в таблице user_phones
      */
-    private void savePhones(long userId, List<String> phones) throws SQLException {
+    private void savePhones(Connection connection, long userId, List<String> phones) throws SQLException {
         if (phones == null || phones.isEmpty()) {
             logger.info("   -> [savePhones] Список phones пуст, ничего не сохраняем.");
             return;
@@ -135,18 +143,18 @@ public class UserDao {
 
         try (PreparedStatement phoneStmt = connection.prepareStatement(phoneSql)) {
             for (String phone : phones) {
-                logger.info("      INSERT phone: " + phone);
                 phoneStmt.setLong(1, userId);
                 phoneStmt.setString(2, phone);
-                phoneStmt.executeUpdate();
+                phoneStmt.addBatch();
             }
+            phoneStmt.executeBatch();
         }
     }
 
     /**
      * ✅ Проверка существования логина (по таблице users_access)
      */
-    private boolean isLoginExists(String login) throws SQLException {
+    private boolean isLoginExists(Connection connection, String login) throws SQLException {
         String sql = "SELECT COUNT(*) FROM users_access WHERE login = ?";
         logger.info("🔎 [UserDao.isLoginExists] Проверяем логин: " + login);
 
@@ -161,69 +169,169 @@ public class UserDao {
     }
 
     /**
-     * ✅ Получение всех пользователей + их e‑mail’ы + телефоны через двойной LEFT JOIN.
+     * ✅ Получение всех пользователей + их e‑mail’ы + телефоны.
+     * Вместо двойного LEFT JOIN (emails × phones строк на пользователя) — три запроса:
+     * пользователи и по одному потоковому запросу на каждую дочернюю таблицу, слитые по user_id.
      */
     public List<User> getAllUsers() {
-        List<User> users = new ArrayList<>();
-        String sql = "SELECT u.id, u.name, u.login, u.city, u.address, u.birthdate, " +
-                "       e.email, p.phone " +
-                "FROM users u " +
-                "LEFT JOIN user_emails e ON u.id = e.user_id " +
-                "LEFT JOIN user_phones p ON u.id = p.user_id";
-
-        if (connection == null) {
-            logger.severe("❌ [UserDao.getAllUsers] Нет подключения к базе данных.");
-            return users;
-        }
+        String sql = "SELECT id, name, login, city, address, birthdate FROM users ORDER BY id";
+
         logger.info("🔎 [UserDao.getAllUsers] Запрашиваем всех пользователей с e-mails и phones.");
 
-        try (Statement statement = connection.createStatement();
-             ResultSet rs = statement.executeQuery(sql)) {
+        Map<Long, User> userMap = new LinkedHashMap<>();
+        try (Connection connection = TransactionScope.acquire(dbService)) {
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(sql)) {
+                while (rs.next()) {
+                    User user = mapUserSummary(rs);
+                    userMap.put(user.getId(), user);
+                }
+            }
+            mergeChildRows(connection, "SELECT user_id, email FROM user_emails ORDER BY user_id, id",
+                    List.of(), userMap, User::getEmails);
+            mergeChildRows(connection, "SELECT user_id, phone FROM user_phones ORDER BY user_id, id",
+                    List.of(), userMap, User::getPhones);
+        } catch (SQLException ex) {
+            logger.log(Level.SEVERE, "❌ [UserDao.getAllUsers] Ошибка при получении списка пользователей: ", ex);
+            throw new RuntimeException("Ошибка базы данных", ex);
+        }
+        logger.info("✅ [UserDao.getAllUsers] Всего пользователей: " + userMap.size());
+        return new ArrayList<>(userMap.values());
+    }
 
-            Map<Long, User> userMap = new HashMap<>();
-            while (rs.next()) {
-                long userId = rs.getLong("id");
-                User user = userMap.get(userId);
-                if (user == null) {
-                    user = new User();
-                    user.setId(userId);
-                    user.setName(rs.getString("name"));
-                    user.setLogin(rs.getString("login"));
-                    user.setCity(rs.getString("city"));
-                    user.setAddress(rs.getString("address"));
-                    user.setBirthdate(rs.getString("birthdate"));
-                    user.setEmails(new ArrayList<>());
-                    user.setPhones(new ArrayList<>());
-                    userMap.put(userId, user);
+    /**
+     * ✅ Страница пользователей (keyset по id) с e‑mail’ами и телефонами.
+     * Всего три запроса на страницу независимо от её размера и глубины.
+     *
+     * @param afterId id последнего пользователя предыдущей страницы или {@code null} для первой
+     */
+    public List<User> getUsersPage(Long afterId, int limit) {
+        String sql = "SELECT id, name, login, city, address, birthdate FROM users "
+                + (afterId != null ? "WHERE id > ? " : "")
+                + "ORDER BY id LIMIT ?";
+
+        Map<Long, User> userMap = new LinkedHashMap<>();
+        try (Connection connection = TransactionScope.acquire(dbService)) {
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                int paramIndex = 1;
+                if (afterId != null) {
+                    stmt.setLong(paramIndex++, afterId);
                 }
-                String email = rs.getString("email");
-                if (email != null && !user.getEmails().contains(email)) {
-                    user.getEmails().add(email);
+                stmt.setInt(paramIndex, limit);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        User user = mapUserSummary(rs);
+                        userMap.put(user.getId(), user);
+                    }
                 }
-                String phone = rs.getString("phone");
-                if (phone != null && !user.getPhones().contains(phone)) {
-                    user.getPhones().add(phone);
+            }
+            if (!userMap.isEmpty()) {
+                // Число параметров округляется до степени двойки: разных текстов SQL — единицы,
+                // а не по одному на каждый размер страницы (серверные prepare и кеш запросов)
+                List<Long> ids = new ArrayList<>(userMap.keySet());
+                int params = Integer.highestOneBit(ids.size() * 2 - 1);
+                Long lastId = ids.get(ids.size() - 1);
+                while (ids.size() < params) {
+                    // Хвост заполняем последним id — дубликаты в IN ничего не меняют
+                    ids.add(lastId);
                 }
+                String in = String.join(",", Collections.nCopies(params, "?"));
+                mergeChildRows(connection, "SELECT user_id, email FROM user_emails WHERE user_id IN (" + in + ") ORDER BY user_id, id",
+                        ids, userMap, User::getEmails);
+                mergeChildRows(connection, "SELECT user_id, phone FROM user_phones WHERE user_id IN (" + in + ") ORDER BY user_id, id",
+                        ids, userMap, User::getPhones);
             }
-            users.addAll(userMap.values());
         } catch (SQLException ex) {
-            logger.log(Level.SEVERE, "❌ [UserDao.getAllUsers] Ошибка при получении списка пользователей: ", ex);
+            logger.log(Level.SEVERE, "❌ [UserDao.getUsersPage] Ошибка при получении страницы пользователей: ", ex);
             throw new RuntimeException("Ошибка базы данных", ex);
         }
-        logger.info("✅ [UserDao.getAllUsers] Всего пользователей: " + users.size());
-        return users;
+        logger.info("✅ [UserDao.getUsersPage] Пользователей на странице: " + userMap.size());
+        return new ArrayList<>(userMap.values());
+    }
+
+    private User mapUserSummary(ResultSet rs) throws SQLException {
+        User user = new User();
+        user.setId(rs.getLong("id"));
+        user.setName(rs.getString("name"));
+        user.setLogin(rs.getString("login"));
+        user.setCity(rs.getString("city"));
+        user.setAddress(rs.getString("address"));
+        user.setBirthdate(rs.getString("birthdate"));
+        user.setEmails(new ArrayList<>());
+        user.setPhones(new ArrayList<>());
+        return user;
+    }
+
+    /**
+     * Потоково читает пары (user_id, value) и дописывает value в список пользователя.
+     */
+    private void mergeChildRows(Connection connection, String sql, Collection<Long> params, Map<Long, User> userMap,
+                                java.util.function.Function<User, List<String>> target) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            int paramIndex = 1;
+            for (long id : params) {
+                stmt.setLong(paramIndex++, id);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    User user = userMap.get(rs.getLong(1));
+                    if (user != null) {
+                        target.apply(user).add(rs.getString(2));
+                    }
+                }
+            }
+        }
     }
 
+    /**
+     * Обновление телефонов по разнице с текущими: удаляются лишь исчезнувшие строки,
+     * вставляются лишь новые. Если список не изменился — один SELECT и никаких записей.
+     * Дубликаты учитываются (сравнение как мультимножеств).
+     */
     public void updateUserPhones(long userId, List<String> phones) throws SQLException {
-        try (PreparedStatement deleteStmt = connection.prepareStatement("DELETE FROM user_phones WHERE user_id = ?");
-             PreparedStatement insertStmt = connection.prepareStatement("INSERT INTO user_phones (user_id, phone) VALUES (?, ?)")) {
-            deleteStmt.setLong(1, userId);
-            deleteStmt.executeUpdate();
-            for (String phone : phones) {
-                insertStmt.setLong(1, userId);
-                insertStmt.setString(2, phone);
-                insertStmt.executeUpdate();
+        List<String> desired = phones == null ? List.of() : phones;
+
+        try (TransactionScope tx = TransactionScope.begin(dbService);
+             Connection connection = tx.getConnection()) {
+
+            // Текущие телефоны: phone -> id строк (FOR UPDATE — параллельное обновление подождёт)
+            Map<String, Deque<Long>> current = new HashMap<>();
+            try (PreparedStatement selectStmt = connection.prepareStatement(
+                    "SELECT id, phone FROM user_phones WHERE user_id = ? FOR UPDATE")) {
+                selectStmt.setLong(1, userId);
+                try (ResultSet rs = selectStmt.executeQuery()) {
+                    while (rs.next()) {
+                        current.computeIfAbsent(rs.getString("phone"), k -> new ArrayDeque<>()).add(rs.getLong("id"));
+                    }
+                }
+            }
+
+            List<String> toInsert = new ArrayList<>();
+            for (String phone : desired) {
+                Deque<Long> ids = current.get(phone);
+                if (ids != null && !ids.isEmpty()) {
+                    ids.poll(); // строка уже есть — оставляем
+                } else {
+                    toInsert.add(phone);
+                }
             }
+            List<Long> toDelete = new ArrayList<>();
+            current.values().forEach(toDelete::addAll);
+
+            if (!toDelete.isEmpty()) {
+                try (PreparedStatement deleteStmt = connection.prepareStatement("DELETE FROM user_phones WHERE id = ?")) {
+                    for (long id : toDelete) {
+                        deleteStmt.setLong(1, id);
+                        deleteStmt.addBatch();
+                    }
+                    deleteStmt.executeBatch();
+                }
+            }
+            savePhones(connection, userId, toInsert);
+
+            tx.commit();
+            logger.info("✅ [UserDao.updateUserPhones] user_id=" + userId
+                    + ": добавлено " + toInsert.size() + ", удалено " + toDelete.size());
         }
     }
 
@@ -272,7 +380,8 @@ public class UserDao {
                 "is_deleted = ?, " +
                 "delete_moment = ? " +
                 "WHERE user_access_id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = TransactionScope.acquire(dbService);
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setBoolean(1, true);
             stmt.setTimestamp(2, new Timestamp(System.currentTimeMillis()));
             stmt.setString(3, userAccessId);
@@ -308,7 +417,8 @@ public class UserDao {
                 "delete_moment = ? " +
                 "WHERE id = ?";
 
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = TransactionScope.acquire(dbService);
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, "Deleted User");      // анонімізоване ім'я
             stmt.setString(2, uniqueLogin);           // унікальний логін
             stmt.setString(3, "");                    // очищення міста
@@ -365,7 +475,8 @@ public class UserDao {
     }
 
     private boolean executeStatement(String sql, String successMessage) {
-        try (Statement statement = connection.createStatement()) {
+        try (Connection connection = TransactionScope.acquire(dbService);
+             Statement statement = connection.createStatement()) {
             statement.executeUpdate(sql);
             logger.info(successMessage);
             return true;
@@ -380,7 +491,8 @@ public class UserDao {
     }
 
     private String fetchSingleValue(String sql, String errorMessage) {
-        try (Statement statement = connection.createStatement();
+        try (Connection connection = TransactionScope.acquire(dbService);
+             Statement statement = connection.createStatement();
              ResultSet resultSet = statement.executeQuery(sql)) {
             return resultSet.next() ? resultSet.getString(1) : null;
         } catch (SQLException e) {
@@ -392,7 +504,8 @@ public class UserDao {
     public String fetchDatabases() {
         String sql = "SHOW DATABASES";
         StringBuilder databases = new StringBuilder();
-        try (Statement statement = connection.createStatement();
+        try (Connection connection = TransactionScope.acquire(dbService);
+             Statement statement = connection.createStatement();
              ResultSet resultSet = statement.executeQuery(sql)) {
             while (resultSet.next()) {
                 if (databases.length() > 0) databases.append(", ");
@@ -407,7 +520,8 @@ public class UserDao {
 
     public void updateUser(User user) throws SQLException {
         String sql = "UPDATE users SET name = ?, login = ?, city = ?, address = ?, birthdate = ? WHERE id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = TransactionScope.acquire(dbService);
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, user.getName());
             stmt.setString(2, user.getLogin());
             stmt.setString(3, user.getCity());
@@ -427,7 +541,8 @@ public class UserDao {
 
     private boolean isUserExists(Long userId) throws SQLException {
         String sql = "SELECT COUNT(*) FROM users WHERE id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = TransactionScope.acquire(dbService);
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, userId);
             try (ResultSet rs = stmt.executeQuery()) {
                 return rs.next() && rs.getInt(1) > 0;
@@ -437,7 +552,8 @@ public class UserDao {
 
     public void updateUserAccessLogin(long userId, String newLogin) throws SQLException {
         String sql = "UPDATE users_access SET login = ? WHERE user_id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = TransactionScope.acquire(dbService);
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, newLogin);
             stmt.setLong(2, userId);
             stmt.executeUpdate();
@@ -472,40 +588,64 @@ public class UserDao {
     }
 
     public User getUserDetailsById(long userId) throws SQLException {
-        String sql = "SELECT u.id, u.name, u.login, u.city, u.address, u.birthdate, " +
-                "       e.email, p.phone " +
-                "FROM users u " +
-                "LEFT JOIN user_emails e ON u.id = e.user_id " +
-                "LEFT JOIN user_phones p ON u.id = p.user_id " +
-                "WHERE u.id = ?";
-        User user = null;
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        String sql = "SELECT id, name, login, city, address, birthdate FROM users WHERE id = ?";
+        try (Connection connection = TransactionScope.acquire(dbService);
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setLong(1, userId);
             try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    if (user == null) {
-                        user = new User();
-                        user.setId(rs.getLong("id"));
-                        user.setName(rs.getString("name"));
-                        user.setLogin(rs.getString("login"));
-                        user.setCity(rs.getString("city"));
-                        user.setAddress(rs.getString("address"));
-                        user.setBirthdate(rs.getString("birthdate"));
-                        user.setEmails(new ArrayList<>());
-                        user.setPhones(new ArrayList<>());
-                    }
-                    String email = rs.getString("email");
-                    if (email != null && !user.getEmails().contains(email)) {
-                        user.getEmails().add(email);
-                    }
-                    String phone = rs.getString("phone");
-                    if (phone != null && !user.getPhones().contains(phone)) {
-                        user.getPhones().add(phone);
-                    }
+                if (!rs.next()) {
+                    return null;
                 }
+                User user = mapUserSummary(rs);
+                user.setEmails(getEmailsForUser(connection, userId));
+                user.setPhones(getPhonesForUser(connection, userId));
+                return user;
             }
         }
-        return user;
+    }
+
+    /**
+     * ✅ Данные для входа одним запросом: хеш пароля, роль, emails и телефоны.
+     * Дочерние таблицы сворачиваются коррелированными подзапросами (GROUP_CONCAT в формате,
+     * который понимает {@link User#fromResultSet(ResultSet)}), поэтому строк email×phone не возникает.
+     */
+    public User getUserForLogin(String login) throws SQLException {
+        String sql = """
+        SELECT
+            u.*,
+            (SELECT ua.role_id FROM users_access ua WHERE ua.user_id = u.id LIMIT 1) AS role_id,
+            (SELECT GROUP_CONCAT(e.email SEPARATOR '; ') FROM user_emails e WHERE e.user_id = u.id) AS emails,
+            (SELECT GROUP_CONCAT(p.phone SEPARATOR '; ') FROM user_phones p WHERE p.user_id = u.id) AS phones
+        FROM users u
+        WHERE u.login = ?
+    """;
+
+        try (Connection connection = TransactionScope.acquire(dbService);
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, login);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                User user = User.fromResultSet(rs);
+                user.setRole(rs.getString("role_id"));
+                return user;
+            }
+        }
+    }
+
+    /**
+     * ✅ Замена хеша пароля, только если он не изменился с момента чтения (compare-and-set).
+     */
+    public boolean updatePasswordHash(long userId, String expectedHash, String newHash) throws SQLException {
+        String sql = "UPDATE users SET password = ? WHERE id = ? AND password = ?";
+        try (Connection connection = TransactionScope.acquire(dbService);
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, newHash);
+            stmt.setLong(2, userId);
+            stmt.setString(3, expectedHash);
+            return stmt.executeUpdate() > 0;
+        }
     }
 
     public User getUserById(long userId) throws SQLException {
@@ -526,7 +666,8 @@ public class UserDao {
         WHERE u.id = ?
     """;
 
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+        try (Connection connection = TransactionScope.acquire(dbService);
+             PreparedStatement stmt = connection.prepareStatement(query)) {
             stmt.setLong(1, userId);
 
             try (ResultSet rs = stmt.executeQuery()) {
@@ -546,8 +687,8 @@ public class UserDao {
                     user.setEmailConfirmationToken(rs.getString("email_confirmation_token"));
 
                     // ✔ Подгружаем emails и phones
-                    user.setEmails(getEmailsForUser(userId));
-                    user.setPhones(getPhonesForUser(userId));
+                    user.setEmails(getEmailsForUser(connection, userId));
+                    user.setPhones(getPhonesForUser(connection, userId));
 
                     return user;
                 }
@@ -557,7 +698,7 @@ public class UserDao {
         return null;
     }
 
-    private List<String> getEmailsForUser(long userId) throws SQLException {
+    private List<String> getEmailsForUser(Connection connection, long userId) throws SQLException {
         List<String> emails = new ArrayList<>();
         String query = "SELECT email FROM user_emails WHERE user_id = ?";
 
@@ -574,7 +715,7 @@ public class UserDao {
         return emails;
     }
 
-    private List<String> getPhonesForUser(long userId) throws SQLException {
+    private List<String> getPhonesForUser(Connection connection, long userId) throws SQLException {
         List<String> phones = new ArrayList<>();
         String query = "SELECT phone FROM user_phones WHERE user_id = ?";
 
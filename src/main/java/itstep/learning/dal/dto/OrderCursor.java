@@ -0,0 +1,51 @@
+package itstep.learning.dal.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Позиция keyset-пагинации заказов: последние увиденные (created_at, order_id).
+ * Клиенту передаётся как непрозрачный токен (Base64url).
+ */
+public final class OrderCursor {
+    private static final char SEPARATOR = '\u0000';
+
+    private final LocalDateTime createdAt;
+    private final UUID orderId;
+
+    public OrderCursor(LocalDateTime createdAt, UUID orderId) {
+        this.createdAt = createdAt;
+        this.orderId = orderId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public UUID getOrderId() {
+        return orderId;
+    }
+
+    public String encode() {
+        String raw = createdAt.toString() + SEPARATOR + orderId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException если токен повреждён
+     */
+    public static OrderCursor decode(String token) {
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        int split = raw.indexOf(SEPARATOR);
+        if (split < 0) {
+            throw new IllegalArgumentException("Invalid cursor token");
+        }
+        try {
+            return new OrderCursor(LocalDateTime.parse(raw.substring(0, split)), UUID.fromString(raw.substring(split + 1)));
+        } catch (java.time.format.DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor token", e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package itstep.learning.dal.dto;
+
+import itstep.learning.models.Order;
+
+import java.util.List;
+
+/**
+ * Страница заказов: {@code next} — токен для следующего запроса или {@code null}, если страница последняя.
+ */
+public class OrderPage {
+    private final List<Order> items;
+    private final String next;
+
+    public OrderPage(List<Order> items, String next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    public List<Order> getItems() {
+        return items;
+    }
+
+    public String getNext() {
+        return next;
+    }
+}
@@ -0,0 +1,50 @@
+package itstep.learning.dal.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Позиція keyset-пагінації продуктів: останні побачені (name, product_id).
+ * Клієнту передається як непрозорий токен {@code after} (Base64url).
+ */
+public final class ProductCursor {
+    private static final char SEPARATOR = '\u0000';
+
+    private final String name;
+    private final UUID productId;
+
+    public ProductCursor(String name, UUID productId) {
+        this.name = name;
+        this.productId = productId;
+    }
+
+    public static ProductCursor of(Product product) {
+        return new ProductCursor(product.getName(), product.getProductId());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public UUID getProductId() {
+        return productId;
+    }
+
+    public String encode() {
+        String raw = name + SEPARATOR + productId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException якщо токен пошкоджений
+     */
+    public static ProductCursor decode(String token) {
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        int split = raw.lastIndexOf(SEPARATOR);
+        if (split < 0) {
+            throw new IllegalArgumentException("Invalid cursor token");
+        }
+        return new ProductCursor(raw.substring(0, split), UUID.fromString(raw.substring(split + 1)));
+    }
+}
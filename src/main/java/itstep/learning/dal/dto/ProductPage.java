@@ -0,0 +1,25 @@
+package itstep.learning.dal.dto;
+
+import java.util.List;
+
+/**
+ * Сторінка продуктів у keyset-режимі: {@code next} — токен для наступного запиту
+ * ({@code after=next}) або {@code null}, якщо це остання сторінка.
+ */
+public class ProductPage {
+    private final List<Product> items;
+    private final String next;
+
+    public ProductPage(List<Product> items, String next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    public List<Product> getItems() {
+        return items;
+    }
+
+    public String getNext() {
+        return next;
+    }
+}
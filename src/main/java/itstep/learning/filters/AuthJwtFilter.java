@@ -1,20 +1,11 @@
 package itstep.learning.filters;
 
-import itstep.learning.dal.dao.DataContext;
-import itstep.learning.dal.dto.UserAccess;
-import jakarta.inject.Inject;
-import jakarta.servlet.*;
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
-
-import java.io.IOException;
-import java.util.logging.Logger;
-
-
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import com.google.inject.Singleton;
-import itstep.learning.dal.dao.DataContext;
-import itstep.learning.dal.dto.UserAccess;
-import itstep.learning.services.hash.HashService;
+import itstep.learning.models.AuthPrincipal;
+import itstep.learning.services.JwtService;
+import jakarta.inject.Inject;
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.FilterConfig;
@@ -22,65 +13,74 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletRequest;
 import jakarta.servlet.ServletResponse;
 import jakarta.servlet.http.HttpServletRequest;
+
 import java.io.IOException;
+import java.util.logging.Logger;
 
+/**
+ * Проверяет Bearer-токен один раз на запрос и кладёт {@link AuthPrincipal} в атрибут
+ * {@value AuthPrincipal#REQUEST_ATTRIBUTE}. Запросы без токена или с невалидным токеном
+ * пропускаются дальше без principal — решение об отказе принимает сервлет
+ * (публичные GET-запросы каталога токена не требуют). Причина отказа — в атрибуте "authStatus".
+ */
 @Singleton
 public class AuthJwtFilter implements Filter {
-    private FilterConfig filterConfig;
-    private final HashService hashService;
+    private static final Logger LOGGER = Logger.getLogger(AuthJwtFilter.class.getName());
+    private static final String AUTH_SCHEME = "Bearer ";
+
+    private final JwtService jwtService;
 
     @Inject
-    public AuthJwtFilter( HashService hashService ) {
-        this.hashService = hashService;
+    public AuthJwtFilter(JwtService jwtService) {
+        this.jwtService = jwtService;
     }
 
     @Override
     public void init(FilterConfig filterConfig) throws ServletException {
-        this.filterConfig = filterConfig;
+        LOGGER.info("✅ AuthJwtFilter инициализирован");
     }
 
     @Override
     public void doFilter(ServletRequest sreq, ServletResponse sresp,
                          FilterChain next) throws IOException, ServletException {
-
-        checkJwt( (HttpServletRequest) sreq ) ;
-
-//                UserAccess userAccess = null ;
-//                if( userAccess == null ) {
-//                    authStatus = "Token expires or invalid" ;
-//                }
-//                else {
-//                    authStatus = "OK" ;
-//                    req.setAttribute( "authUserAccess", userAccess );
-//                }
-
-        next.doFilter( sreq, sresp );
+        checkJwt((HttpServletRequest) sreq);
+        next.doFilter(sreq, sresp);
     }
 
-    private void checkJwt( HttpServletRequest req ) {
-        // Перевіряємо авторизацію за токеном
-        String authHeader = req.getHeader( "Authorization" );
-        if( authHeader == null ) {
-            req.setAttribute( "authStatus", "Authorization header required" );
-            return ;
+    private void checkJwt(HttpServletRequest req) {
+        String authHeader = req.getHeader("Authorization");
+        if (authHeader == null) {
+            req.setAttribute("authStatus", "Authorization header required");
+            return;
         }
-        String authScheme = "Bearer ";
-        if( ! authHeader.startsWith( authScheme ) ) {
-            req.setAttribute( "authStatus", "Authorization scheme error" );
-            return ;
+        if (!authHeader.startsWith(AUTH_SCHEME)) {
+            req.setAttribute("authStatus", "Authorization scheme error");
+            return;
         }
-        String credentials = authHeader.substring( authScheme.length() ) ;
-        String[] parts = credentials.split("\\.");
-        if( parts.length != 3 ) {
-            req.setAttribute( "authStatus", "Token format invalid" );
-            return ;
+        JsonElement payload = jwtService.fromJwt(authHeader.substring(AUTH_SCHEME.length()));
+        if (payload == null || !payload.isJsonObject()) {
+            req.setAttribute("authStatus", "Token expires or invalid");
+            return;
+        }
+        JsonObject subject = payload.getAsJsonObject();
+        if (!subject.has("user_id")) {
+            req.setAttribute("authStatus", "Token payload invalid");
+            return;
+        }
+        try {
+            AuthPrincipal principal = new AuthPrincipal(
+                    subject.get("user_id").getAsLong(),
+                    subject.has("login") ? subject.get("login").getAsString() : null,
+                    subject.has("role") ? subject.get("role").getAsString() : null);
+            req.setAttribute(AuthPrincipal.REQUEST_ATTRIBUTE, principal);
+            req.setAttribute("authStatus", "OK");
+        } catch (RuntimeException e) {
+            LOGGER.warning("⚠️ Некорректный payload токена: " + e.getMessage());
+            req.setAttribute("authStatus", "Token payload invalid");
         }
     }
 
     @Override
     public void destroy() {
-        this.filterConfig = null;
     }
-
-
-}
\ No newline at end of file
+}
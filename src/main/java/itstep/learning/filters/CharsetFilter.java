@@ -44,17 +44,17 @@ public class CharsetFilter implements Filter {
             throws IOException, ServletException {
 
         try {
-            LOGGER.info("➡️ CharsetFilter doFilter() вызван");
+            LOGGER.fine("➡️ CharsetFilter doFilter() вызван");
 
             request.setCharacterEncoding(charset);
             response.setCharacterEncoding(charset);
 
             String contentType = response.getContentType();
-            LOGGER.info("ℹ️ Content-Type перед проверкой: " + contentType);
+            LOGGER.fine(() -> "ℹ️ Content-Type перед проверкой: " + contentType);
 
             if (contentType == null || contentType.isBlank()) {
                 response.setContentType("text/html; charset=" + charset);
-                LOGGER.info("ℹ️ Content-Type был пустой, установлен: text/html; charset=" + charset);
+                LOGGER.fine(() -> "ℹ️ Content-Type был пустой, установлен: text/html; charset=" + charset);
             }
 
             chain.doFilter(request, response);
@@ -1,20 +1,12 @@
 package itstep.learning.ioc;
-import com.mysql.cj.jdbc.AbandonedConnectionCleanupThread;
+import com.google.inject.Injector;
+import itstep.learning.dal.dao.AccessTokenDao;
+import itstep.learning.services.maintenance.TokenSweeperService;
 
 
-import javax.servlet.ServletContextEvent;
-import javax.servlet.ServletContextListener;
-import javax.servlet.annotation.WebListener;
-import java.lang.reflect.Method;
-import java.sql.DriverManager;
-import java.sql.SQLException;
-import java.util.Enumeration;
-import java.util.logging.Logger;
-
-
-import javax.servlet.ServletContextEvent;
-import javax.servlet.ServletContextListener;
-import javax.servlet.annotation.WebListener;
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
 import java.sql.Driver;
 import java.sql.DriverManager;
 import java.sql.SQLException;
@@ -26,15 +18,36 @@ public class AppContextListener implements ServletContextListener {
 
     private static final Logger LOGGER = Logger.getLogger(AppContextListener.class.getName());
 
+    private Injector injector;
+    private TokenSweeperService tokenSweeperService;
+
     @Override
     public void contextInitialized(ServletContextEvent sce) {
         LOGGER.info("Контекст приложения инициализирован");
+
+        // Injector кладёт в контекст IocContextListener (он объявлен в web.xml и стартует раньше)
+        injector = (Injector) sce.getServletContext().getAttribute(Injector.class.getName());
+        if (injector != null) {
+            tokenSweeperService = injector.getInstance(TokenSweeperService.class);
+            tokenSweeperService.start();
+        } else {
+            LOGGER.warning("Injector не найден в контексте, очистка токенов не запущена");
+        }
     }
 
     @Override
     public void contextDestroyed(ServletContextEvent sce) {
         LOGGER.info("Контекст приложения уничтожается, очистка ресурсов");
 
+        // Этот слушатель уничтожается раньше IocContextListener, а драйверы ниже отписываются,
+        // поэтому фоновую работу с БД завершаем здесь, пока новые соединения ещё можно открыть
+        if (tokenSweeperService != null) {
+            tokenSweeperService.stop();
+        }
+        if (injector != null) {
+            injector.getInstance(AccessTokenDao.class).shutdown();
+        }
+
         // Отписка зарегистрированных JDBC драйверов
         Enumeration<Driver> drivers = DriverManager.getDrivers();
         while (drivers.hasMoreElements()) {
@@ -97,4 +110,4 @@ public class AppContextListener implements ServletContextListener {
         }
         logger.info("Application context destroyed.");
     }
-}*/
\ No newline at end of file
+}*/
@@ -2,8 +2,13 @@ package itstep.learning.ioc;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.servlet.GuiceServletContextListener;
+import itstep.learning.dal.dao.AccessTokenDao;
 import itstep.learning.services.DbService.DbService;
+import itstep.learning.services.DbService.PooledDbService;
 import itstep.learning.services.config.ConfigService;
+import itstep.learning.services.hash.PasswordHashExecutor;
+import itstep.learning.services.logging.AsyncLogHandler;
+import itstep.learning.services.logging.Log;
 import itstep.learning.services.random.RandomService;
 import jakarta.servlet.ServletContext;
 import jakarta.servlet.ServletContextEvent;
@@ -12,6 +17,7 @@ import jakarta.servlet.annotation.WebListener;
 @WebListener
 public class IocContextListener extends GuiceServletContextListener {
     private Injector injector;
+    private AsyncLogHandler asyncLogHandler;
 
     @Override
     protected Injector getInjector() {
@@ -25,10 +31,30 @@ public class IocContextListener extends GuiceServletContextListener {
     public void contextInitialized(ServletContextEvent sce) {
         super.contextInitialized(sce);
         ServletContext context = sce.getServletContext();
-        context.setAttribute("configService", injector.getInstance(ConfigService.class));
+        ConfigService configService = injector.getInstance(ConfigService.class);
+        // Логи приложения пишутся из отдельного потока, поток запроса только кладёт запись в буфер
+        if (configService.getBoolean("logging.async.enabled", true)) {
+            asyncLogHandler = Log.installAsync(configService.getInt("logging.async.bufferSize", 8192));
+        }
+        context.setAttribute("configService", configService);
         context.setAttribute("dbService", injector.getInstance(DbService.class));
         context.setAttribute("randomService", injector.getInstance(RandomService.class));
     }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        // Токены дописываются в БД до закрытия пула
+        injector.getInstance(AccessTokenDao.class).shutdown();
+        injector.getInstance(PasswordHashExecutor.class).shutdown();
+        DbService dbService = injector.getInstance(DbService.class);
+        if (dbService instanceof PooledDbService) {
+            ((PooledDbService) dbService).shutdown();
+        }
+        if (asyncLogHandler != null) {
+            Log.uninstallAsync(asyncLogHandler);
+        }
+        super.contextDestroyed(sce);
+    }
 }
 /*
 ContextListener — "слухачі" подій створення контексту, тобто запуску/делоаду проєкту.
@@ -3,18 +3,25 @@ import com.google.inject.AbstractModule;
 import com.google.inject.Singleton;
 import itstep.learning.dal.dao.*;
 
+import itstep.learning.rest.JsonResponseWriter;
 import itstep.learning.services.DbService.DbService;
-import itstep.learning.services.DbService.MySqlDbService;
+import itstep.learning.services.DbService.PooledDbService;
 import itstep.learning.services.JwtService;
+import itstep.learning.services.cache.CatalogVersion;
+import itstep.learning.services.cache.ResponseCache;
 import itstep.learning.services.config.ConfigService;
 import itstep.learning.services.config.JsonConfigService;
 import itstep.learning.services.form_parse.FormParseService;
 import itstep.learning.services.form_parse.MixedFormParseService;
 import itstep.learning.services.hash.HashService;
 import itstep.learning.services.hash.Md5HashService;
+import itstep.learning.services.hash.PasswordHashExecutor;
+import itstep.learning.services.kdf.KdfPolicyService;
 import itstep.learning.services.kdf.KdfService;
 import itstep.learning.services.kdf.PbKdfService;
+import itstep.learning.services.maintenance.TokenSweeperService;
 import itstep.learning.services.random.*;
+import itstep.learning.services.ratelimit.LoginRateLimiter;
 import itstep.learning.services.storage.DiskStorageService;
 import itstep.learning.services.storage.StorageService;
 
@@ -25,11 +32,13 @@ public class ServiceConfig extends AbstractModule {
     protected void configure() {
         bind(HashService.class).to(Md5HashService.class);
         bind(KdfService.class).to(PbKdfService.class);
+        bind(KdfPolicyService.class).asEagerSingleton(); // калибровка стоимости KDF при старте
         bind(DateTimeService.class).in(Singleton.class);
-        bind(DbService.class).to(MySqlDbService.class);
+        bind(DbService.class).to(PooledDbService.class);
         bind(DataContext.class).in(Singleton.class);
+        bind(UserDao.class).in(Singleton.class);
         bind(RandomService.class).to(RandomServiceImpl.class);
-        bind(AccessTokenDao.class).in(Singleton.class);
+        bind(AccessTokenDao.class).asEagerSingleton(); // прогрев токенов при старте
         bind(ConfigService.class).to(JsonConfigService.class);
         bind(JwtService.class).in(Singleton.class);
         bind(FormParseService.class).to(MixedFormParseService.class);
@@ -38,6 +47,12 @@ public class ServiceConfig extends AbstractModule {
         bind(ProductDao.class).in(Singleton.class);
         bind(CartDao.class).in(Singleton.class);
         bind(OrdersDao.class).in(Singleton.class);
+        bind(TokenSweeperService.class).in(Singleton.class);
+        bind(PasswordHashExecutor.class).in(Singleton.class);
+        bind(LoginRateLimiter.class).in(Singleton.class);
+        bind(JsonResponseWriter.class).in(Singleton.class);
+        bind(CatalogVersion.class).in(Singleton.class);
+        bind(ResponseCache.class).in(Singleton.class);
 
     }
 }
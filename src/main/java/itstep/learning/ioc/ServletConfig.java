@@ -1,12 +1,15 @@
 package itstep.learning.ioc;
 import com.google.inject.servlet.ServletModule;
 
+import itstep.learning.filters.AuthJwtFilter;
 import itstep.learning.filters.CharsetFilter;
 import itstep.learning.servlets.*;
 
 public class ServletConfig extends ServletModule {
     @Override
     protected void configureServlets() {
+        // JWT проверяется один раз на запрос, сервлеты читают готовый AuthPrincipal
+        filter("/*").through(AuthJwtFilter.class);
 
         serve("/register").with(RegisterServlet.class);
         serve("/login").with(LoginServlet.class);
@@ -0,0 +1,46 @@
+package itstep.learning.models;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Аутентифицированный пользователь запроса. Создаётся один раз в AuthJwtFilter
+ * после проверки JWT и кладётся в атрибут запроса — сервлеты токен больше не разбирают.
+ */
+public final class AuthPrincipal {
+    public static final String REQUEST_ATTRIBUTE = "authPrincipal";
+
+    private final long userId;
+    private final String login;
+    private final String role;
+
+    public AuthPrincipal(long userId, String login, String role) {
+        this.userId = userId;
+        this.login = login;
+        this.role = role;
+    }
+
+    /**
+     * Principal текущего запроса или {@code null}, если запрос не аутентифицирован.
+     */
+    public static AuthPrincipal from(HttpServletRequest req) {
+        Object principal = req.getAttribute(REQUEST_ATTRIBUTE);
+        return principal instanceof AuthPrincipal ? (AuthPrincipal) principal : null;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public String getLogin() {
+        return login;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    @Override
+    public String toString() {
+        return "AuthPrincipal{userId=" + userId + ", login='" + login + "', role='" + role + "'}";
+    }
+}
@@ -0,0 +1,104 @@
+package itstep.learning.rest;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Async-запит, який завершує рівно одна сторона: фонова задача через {@link #finish(ResponseAction)}
+ * або тайм-аут контейнера. Хто перший — той пише відповідь і викликає {@code complete()},
+ * друга сторона нічого не робить.
+ * <pre>
+ * AsyncCompletion completion = AsyncCompletion.start(req, timeoutMs, r -> send503(r));
+ * future.whenComplete((value, error) -> completion.finish(r -> sendResult(r, future)));
+ * </pre>
+ */
+public final class AsyncCompletion implements AsyncListener {
+    private static final Logger LOGGER = Logger.getLogger(AsyncCompletion.class.getName());
+
+    private final AsyncContext context;
+    private final ResponseAction onTimeout;
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    private AsyncCompletion(AsyncContext context, ResponseAction onTimeout) {
+        this.context = context;
+        this.onTimeout = onTimeout;
+    }
+
+    /**
+     * Переводить запит в async з заданим тайм-аутом; {@code onTimeout} пише відповідь,
+     * якщо задача не встигла.
+     */
+    public static AsyncCompletion start(HttpServletRequest req, long timeoutMs, ResponseAction onTimeout) {
+        AsyncContext context = req.startAsync();
+        context.setTimeout(timeoutMs);
+        AsyncCompletion completion = new AsyncCompletion(context, onTimeout);
+        context.addListener(completion);
+        return completion;
+    }
+
+    /**
+     * Виконує {@code action} на потоці контейнера і завершує запит — якщо тайм-аут ще не спрацював.
+     * Можна викликати з будь-якого потоку.
+     */
+    public void finish(ResponseAction action) {
+        if (finished.get()) {
+            LOGGER.fine("Async-запит уже завершено за тайм-аутом, результат відкинуто");
+            return;
+        }
+        try {
+            context.start(() -> complete(action));
+        } catch (IllegalStateException e) {
+            // Контейнер завершив запит між перевіркою і start()
+            LOGGER.log(Level.FINE, "Async-запит уже завершено контейнером", e);
+        }
+    }
+
+    private void complete(ResponseAction action) {
+        if (!finished.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            action.run((HttpServletResponse) context.getResponse());
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "❌ Помилка завершення async-відповіді", e);
+        } finally {
+            context.complete();
+        }
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        LOGGER.warning("⏱️ Async-запит не завершено за " + context.getTimeout() + " ms");
+        complete(onTimeout);
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        if (finished.compareAndSet(false, true)) {
+            LOGGER.log(Level.WARNING, "⚠️ Помилка async-запиту", event.getThrowable());
+            context.complete();
+        }
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+        finished.set(true);
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+    }
+
+    @FunctionalInterface
+    public interface ResponseAction {
+        void run(HttpServletResponse resp) throws IOException;
+    }
+}
@@ -0,0 +1,136 @@
+package itstep.learning.rest;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import itstep.learning.services.LocalDateTimeAdapter;
+import itstep.learning.services.config.ConfigService;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+/**
+ * Спільний запис JSON-відповідей: один налаштований {@link Gson} на весь застосунок і потоковий
+ * {@link JsonWriter} поверх буферизованого UTF-8 {@code OutputStream} відповіді.
+ * <p>
+ * Тіло не збирається в {@code String}: байти йдуть у буфер контейнера по мірі серіалізації,
+ * а коли він заповнюється — клієнту (chunked). За замовчуванням вивід компактний,
+ * {@code json.prettyPrint=true} вмикає форматування для налагодження.
+ */
+@Singleton
+public class JsonResponseWriter {
+    private static final String CONTENT_TYPE = "application/json;charset=UTF-8";
+    private static final String NDJSON_CONTENT_TYPE = "application/x-ndjson;charset=UTF-8";
+
+    private final Gson gson;
+    private final int bufferSize;
+
+    @Inject
+    public JsonResponseWriter(ConfigService configService) {
+        GsonBuilder builder = new GsonBuilder()
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter());
+        if (configService.getBoolean("json.prettyPrint", false)) {
+            builder.setPrettyPrinting();
+        }
+        this.gson = builder.create();
+        this.bufferSize = Math.max(512, configService.getInt("json.bufferSize", 8192));
+    }
+
+    /**
+     * Той самий екземпляр, що й для відповідей, — для розбору тіл запитів.
+     */
+    public Gson getGson() {
+        return gson;
+    }
+
+    public void write(HttpServletResponse resp, int status, Object body) throws IOException {
+        JsonWriter out = open(resp, status);
+        if (body == null) {
+            out.nullValue();
+        } else {
+            gson.toJson(body, body.getClass(), out);
+        }
+        out.flush();
+    }
+
+    /**
+     * Серіалізує тіло в UTF-8 байти — для відповідей, які кешуються й віддаються повторно.
+     */
+    public byte[] toBytes(Object body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        try (Writer writer = new OutputStreamWriter(bytes, StandardCharsets.UTF_8)) {
+            gson.toJson(body, writer);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Записує JSON-масив по одному рядку {@link ResultSet}: кожен рядок перетворюється на об'єкт,
+     * серіалізується і одразу відкидається, тож список усіх рядків у пам'яті не будується.
+     *
+     * @return кількість записаних рядків
+     */
+    public <T> int writeRows(HttpServletResponse resp, int status, ResultSet rs,
+                             RowMapper<T> mapper, Type rowType) throws IOException, SQLException {
+        JsonWriter out = open(resp, status);
+        out.beginArray();
+        int rows = 0;
+        while (rs.next()) {
+            gson.toJson(mapper.map(rs), rowType, out);
+            rows++;
+        }
+        out.endArray();
+        out.flush();
+        return rows;
+    }
+
+    /**
+     * NDJSON: по одному компактному JSON-об'єкту на рядок. Клієнт може обробляти записи
+     * в міру надходження, не чекаючи кінця масиву.
+     *
+     * @return кількість записаних рядків
+     */
+    public <T> int writeNdjson(HttpServletResponse resp, int status, ResultSet rs,
+                               RowMapper<T> mapper, Type rowType) throws IOException, SQLException {
+        Writer writer = openWriter(resp, status, NDJSON_CONTENT_TYPE);
+        int rows = 0;
+        while (rs.next()) {
+            // Окремий JsonWriter без відступів — рядок не розірветься навіть при json.prettyPrint
+            gson.toJson(mapper.map(rs), rowType, new JsonWriter(writer));
+            writer.write('\n');
+            rows++;
+        }
+        writer.flush();
+        return rows;
+    }
+
+    /**
+     * Виставляє статус і тип вмісту та повертає writer поверх потоку відповіді.
+     * Потік контейнера не закривається — після {@code flush()} ним і далі керує контейнер.
+     */
+    public JsonWriter open(HttpServletResponse resp, int status) throws IOException {
+        return gson.newJsonWriter(openWriter(resp, status, CONTENT_TYPE));
+    }
+
+    private Writer openWriter(HttpServletResponse resp, int status, String contentType) throws IOException {
+        resp.setStatus(status);
+        resp.setContentType(contentType);
+        return new BufferedWriter(new OutputStreamWriter(resp.getOutputStream(), StandardCharsets.UTF_8), bufferSize);
+    }
+
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+}
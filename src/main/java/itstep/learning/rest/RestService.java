@@ -13,6 +13,7 @@ public class RestService {
         resp.setContentType("application/json");
         resp.setCharacterEncoding("UTF-8");
         resp.setStatus(HttpServletResponse.SC_OK);
+        applyCacheTime(resp, restResponse.getCacheTime());
 
         // Преобразование ответа в JSON
         String jsonResponse = gson.toJson(restResponse);
@@ -20,4 +21,11 @@ public class RestService {
         // Отправка ответа
         resp.getWriter().write(jsonResponse);
     }
+
+    // cacheTime из RestResponse -> Cache-Control; 0 — клиент обязан перепроверять ответ каждый раз
+    public static void applyCacheTime(HttpServletResponse resp, long cacheTime) {
+        resp.setHeader("Cache-Control", cacheTime > 0
+                ? "public, max-age=" + cacheTime + ", must-revalidate"
+                : "no-cache");
+    }
 }
\ No newline at end of file
@@ -41,6 +41,8 @@ public class MySqlDbService implements DbService {
                     + "?useSSL=false"
                     + "&serverTimezone=UTC"
                     + "&allowPublicKeyRetrieval=true"
+                    + "&rewriteBatchedStatements=true"
+                    + serverPrepStmtParams()
                     + "&" + params;
 
             Class.forName("com.mysql.cj.jdbc.Driver");
@@ -52,6 +54,25 @@ public class MySqlDbService implements DbService {
         }
     }
 
+    // Серверні prepared statements: запит розбирається MySQL один раз на з'єднання,
+    // далі передаються лише параметри у бінарному протоколі.
+    // Кеш драйвера потрібен лише без кешу PooledDbService — інакше це два кеші одних і тих самих statement
+    private String serverPrepStmtParams() {
+        if (!configService.getBoolean("db.MySql.serverPrepStmts", true)) {
+            return "";
+        }
+        String params = "&useServerPrepStmts=true";
+        boolean poolCache = configService.getBoolean("db.MySql.pool.enabled", true)
+                && configService.getInt("db.MySql.pool.statementCacheSize", 64) > 0;
+        if (poolCache) {
+            return params;
+        }
+        return params
+                + "&cachePrepStmts=true"
+                + "&prepStmtCacheSize=" + configService.getInt("db.MySql.prepStmtCacheSize", 250)
+                + "&prepStmtCacheSqlLimit=2048";
+    }
+
     private boolean isConnectionClosed() {
         try {
             return connection == null || connection.isClosed();
@@ -0,0 +1,404 @@
+package itstep.learning.services.DbService;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import itstep.learning.services.config.ConfigService;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Пул з'єднань з БД поверх {@link MySqlDbService}.
+ * <p>
+ * DAO й надалі викликають {@code getConnection()} у try-with-resources, але {@code close()}
+ * повертає фізичне з'єднання до пулу замість розриву TCP-сесії.
+ * Налаштування читаються з {@code db.MySql.pool} у appsettings.json;
+ * при {@code enabled = false} сервіс просто делегує до {@link MySqlDbService}.
+ * <p>
+ * Кожне фізичне з'єднання має власний кеш PreparedStatement ({@code statementCacheSize},
+ * 0 — вимкнено), статистика влучань доступна через {@link #getStatementStats()}.
+ */
+@Singleton
+public class PooledDbService implements DbService {
+    private static final Logger logger = Logger.getLogger(PooledDbService.class.getName());
+
+    private final MySqlDbService connectionFactory;
+    private final boolean enabled;
+    private final int minSize;
+    private final int maxSize;
+    private final long acquireTimeoutMs;
+    private final long idleTimeoutMs;
+    private final int validationTimeoutSec;
+    private final long leakDetectionThresholdMs;
+    private final int statementCacheSize;
+
+    private final BlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Map<PooledConnection, Boolean> borrowed = new ConcurrentHashMap<>();
+    private final Semaphore permits;
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final ScheduledExecutorService housekeeper;
+    private final ConcurrentMap<String, StatementStats> statementStats = new ConcurrentHashMap<>();
+
+    @Inject
+    public PooledDbService(MySqlDbService connectionFactory, ConfigService configService) {
+        this.connectionFactory = connectionFactory;
+        this.enabled = configService.getBoolean("db.MySql.pool.enabled", true);
+        this.maxSize = Math.max(1, configService.getInt("db.MySql.pool.maxSize", 10));
+        this.minSize = Math.min(maxSize, Math.max(0, configService.getInt("db.MySql.pool.minSize", 2)));
+        this.acquireTimeoutMs = configService.getLong("db.MySql.pool.acquireTimeoutMs", 5_000);
+        this.idleTimeoutMs = configService.getLong("db.MySql.pool.idleTimeoutMs", 600_000);
+        this.validationTimeoutSec = configService.getInt("db.MySql.pool.validationTimeoutSec", 2);
+        this.leakDetectionThresholdMs = configService.getLong("db.MySql.pool.leakDetectionThresholdMs", 30_000);
+        this.statementCacheSize = Math.max(0, configService.getInt("db.MySql.pool.statementCacheSize", 64));
+        long housekeepingPeriodMs = configService.getLong("db.MySql.pool.housekeepingPeriodMs", 30_000);
+        this.permits = new Semaphore(maxSize, true);
+
+        if (enabled) {
+            housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "db-pool-housekeeper");
+                thread.setDaemon(true);
+                return thread;
+            });
+            housekeeper.scheduleWithFixedDelay(this::housekeeping, 0, housekeepingPeriodMs, TimeUnit.MILLISECONDS);
+            logger.info("✅ PooledDbService: пул з'єднань увімкнено (min=" + minSize + ", max=" + maxSize
+                    + ", acquireTimeout=" + acquireTimeoutMs + " ms, statementCache=" + statementCacheSize + ")");
+        } else {
+            housekeeper = null;
+            logger.info("ℹ️ PooledDbService: пул вимкнено, кожен запит відкриває нове з'єднання");
+        }
+    }
+
+    @Override
+    public Connection getConnection() {
+        if (!enabled) {
+            return connectionFactory.getConnection();
+        }
+        if (closed.get()) {
+            throw new IllegalStateException("Пул з'єднань закрито");
+        }
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                logger.severe("❌ Не вдалося отримати з'єднання з пулу за " + acquireTimeoutMs
+                        + " ms (зайнято " + borrowed.size() + " з " + maxSize + ")");
+                throw new RuntimeException("Вичерпано пул з'єднань з БД");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Очікування з'єднання перервано", e);
+        }
+
+        try {
+            PooledConnection pooled = acquire();
+            pooled.onBorrow(leakDetectionThresholdMs > 0);
+            borrowed.put(pooled, Boolean.TRUE);
+            return pooled.proxy;
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    // Вільне з'єднання або нове, якщо для нього є місце в межах maxSize
+    private PooledConnection acquire() {
+        long deadline = System.currentTimeMillis() + acquireTimeoutMs;
+        while (true) {
+            PooledConnection pooled = borrowIdle();
+            if (pooled != null) {
+                return pooled;
+            }
+            if (reserveSlot(maxSize)) {
+                return createReserved();
+            }
+            // Усі слоти зайняті з'єднаннями, які саме додає fillToMinimum, — чекаємо на них
+            if (System.currentTimeMillis() > deadline) {
+                throw new RuntimeException("Вичерпано пул з'єднань з БД");
+            }
+            try {
+                pooled = idle.pollFirst(10, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Очікування з'єднання перервано", e);
+            }
+            if (pooled != null) {
+                if (isUsable(pooled.physical)) {
+                    return pooled;
+                }
+                destroy(pooled);
+            }
+        }
+    }
+
+    // Беремо найсвіжіше з'єднання (LIFO), перевіряючи його придатність
+    private PooledConnection borrowIdle() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (isUsable(pooled.physical)) {
+                return pooled;
+            }
+            logger.warning("⚠️ Невалідне з'єднання вилучено з пулу");
+            destroy(pooled);
+        }
+        return null;
+    }
+
+    /**
+     * Резервує місце під нове фізичне з'єднання до його відкриття, щоб позичальники
+     * й fillToMinimum разом не перевищили ліміт.
+     */
+    private boolean reserveSlot(int limit) {
+        while (true) {
+            int total = totalConnections.get();
+            if (total >= limit) {
+                return false;
+            }
+            if (totalConnections.compareAndSet(total, total + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // Місце вже зарезервоване через reserveSlot — при невдачі звільняємо його
+    private PooledConnection createReserved() {
+        try {
+            return new PooledConnection(connectionFactory.getConnection());
+        } catch (RuntimeException e) {
+            totalConnections.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private boolean isUsable(Connection connection) {
+        try {
+            return !connection.isClosed() && connection.isValid(validationTimeoutSec);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // Повернення з'єднання: відкочуємо незавершену транзакцію та відновлюємо auto-commit
+    private void release(PooledConnection pooled) {
+        borrowed.remove(pooled);
+        try {
+            Connection physical = pooled.physical;
+            if (physical.isClosed()) {
+                destroy(pooled);
+                return;
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            physical.clearWarnings();
+            if (pooled.statements != null) {
+                pooled.statements.releaseAll();
+            }
+            if (closed.get()) {
+                destroy(pooled);
+            } else {
+                pooled.lastUsedAt = System.currentTimeMillis();
+                idle.offerFirst(pooled);
+            }
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "⚠️ З'єднання не вдалося повернути до пулу, закриваємо: " + e.getMessage(), e);
+            destroy(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void destroy(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        if (pooled.statements != null) {
+            pooled.statements.closeAll();
+        }
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            logger.log(Level.FINE, "Помилка закриття фізичного з'єднання", e);
+        }
+    }
+
+    private void housekeeping() {
+        try {
+            evictIdle();
+            detectLeaks();
+            fillToMinimum();
+            logStatementStats();
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "⚠️ Помилка обслуговування пулу: " + e.getMessage(), e);
+        }
+    }
+
+    private void evictIdle() {
+        if (idleTimeoutMs <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (PooledConnection pooled : idle) {
+            if (totalConnections.get() <= minSize) {
+                break;
+            }
+            if (now - pooled.lastUsedAt > idleTimeoutMs && idle.remove(pooled)) {
+                destroy(pooled);
+                logger.fine("🧹 Закрито з'єднання, що простоювало понад " + idleTimeoutMs + " ms");
+            }
+        }
+    }
+
+    private void detectLeaks() {
+        if (leakDetectionThresholdMs <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (PooledConnection pooled : borrowed.keySet()) {
+            if (!pooled.leakReported && now - pooled.borrowedAt > leakDetectionThresholdMs) {
+                pooled.leakReported = true;
+                logger.log(Level.WARNING, "⚠️ Можливий витік з'єднання: утримується "
+                        + (now - pooled.borrowedAt) + " ms. Стек того, хто його взяв:", pooled.borrowTrace);
+            }
+        }
+    }
+
+    private void logStatementStats() {
+        if (!logger.isLoggable(Level.FINE) || statementStats.isEmpty()) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder("📊 Кеш PreparedStatement:");
+        statementStats.forEach((sql, stat) -> sb.append("\n  [").append(stat).append("] ").append(sql));
+        logger.fine(sb.toString());
+    }
+
+    private void fillToMinimum() {
+        while (!closed.get() && reserveSlot(minSize)) {
+            try {
+                idle.offerLast(createReserved());
+            } catch (RuntimeException e) {
+                logger.warning("⚠️ Не вдалося поповнити пул до мінімального розміру: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Закриває всі вільні з'єднання та зупиняє фоновий потік.
+     * Зайняті з'єднання будуть закриті при поверненні до пулу.
+     */
+    public void shutdown() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        if (housekeeper != null) {
+            housekeeper.shutdownNow();
+        }
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled);
+        }
+        logger.info("✅ PooledDbService: пул закрито, зайнятих з'єднань залишилось: " + borrowed.size());
+    }
+
+    public int getTotalConnections() {
+        return totalConnections.get();
+    }
+
+    public int getIdleConnections() {
+        return idle.size();
+    }
+
+    public int getBorrowedConnections() {
+        return borrowed.size();
+    }
+
+    /**
+     * Лічильники кешу PreparedStatement за текстом SQL (без зайвих пробілів).
+     */
+    public Map<String, StatementStats> getStatementStats() {
+        return Collections.unmodifiableMap(statementStats);
+    }
+
+    /**
+     * Фізичне з'єднання разом із проксі, яке віддається DAO.
+     */
+    private final class PooledConnection implements InvocationHandler {
+        private final Connection physical;
+        private final Connection proxy;
+        private final StatementCache statements;
+        private volatile long lastUsedAt = System.currentTimeMillis();
+        private volatile long borrowedAt;
+        private volatile Throwable borrowTrace;
+        private volatile boolean leakReported;
+        private volatile boolean returned = true;
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.proxy = (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, this);
+            this.statements = statementCacheSize > 0
+                    ? new StatementCache(physical, proxy, statementCacheSize, statementStats)
+                    : null;
+        }
+
+        // prepareStatement(sql) та prepareStatement(sql, autoGeneratedKeys) обслуговуються кешем
+        private boolean isCacheable(Method method, Object[] args) {
+            if (statements == null || !"prepareStatement".equals(method.getName())) {
+                return false;
+            }
+            return args.length == 1 || (args.length == 2 && args[1] instanceof Integer);
+        }
+
+        private void onBorrow(boolean trackLeaks) {
+            borrowedAt = System.currentTimeMillis();
+            borrowTrace = trackLeaks ? new Throwable("Connection borrowed here") : null;
+            leakReported = false;
+            returned = false;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    synchronized (this) {
+                        if (!returned) {
+                            returned = true;
+                            release(this);
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physical + "]";
+                default:
+                    if (returned) {
+                        throw new SQLException("З'єднання вже повернуто до пулу");
+                    }
+                    if (isCacheable(method, args)) {
+                        int keys = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+                        return statements.prepare((String) args[0], keys);
+                    }
+                    try {
+                        return method.invoke(physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
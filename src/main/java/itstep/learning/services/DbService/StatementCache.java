@@ -0,0 +1,214 @@
+package itstep.learning.services.DbService;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * LRU-кеш PreparedStatement одного фізичного з'єднання, ключ — текст SQL.
+ * <p>
+ * DAO закривають statement як зазвичай (try-with-resources), але фізично він лишається відкритим
+ * і при наступному {@code prepareStatement} з тим самим SQL віддається повторно — без нового розбору
+ * запиту на сервері. Кеш живе рівно стільки, скільки фізичне з'єднання в пулі.
+ * Працює лише з потоку, який позичив з'єднання, тому синхронізація не потрібна.
+ */
+final class StatementCache {
+    private static final Logger logger = Logger.getLogger(StatementCache.class.getName());
+
+    private final Connection physical;
+    private final Connection owner;
+    private final ConcurrentMap<String, StatementStats> stats;
+    private final Map<String, CachedStatement> statements;
+
+    StatementCache(Connection physical, Connection owner, int capacity, ConcurrentMap<String, StatementStats> stats) {
+        this.physical = physical;
+        this.owner = owner;
+        this.stats = stats;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() <= capacity) {
+                    return false;
+                }
+                eldest.getValue().evict();
+                return true;
+            }
+        };
+    }
+
+    PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? sql + "\u0000keys" : sql;
+        StatementStats stat = stats.computeIfAbsent(normalize(sql), k -> new StatementStats());
+
+        CachedStatement cached = statements.get(key);
+        if (cached != null && !cached.inUse) {
+            stat.recordHit();
+            return cached.checkout();
+        }
+        stat.recordMiss();
+        PreparedStatement statement = autoGeneratedKeys == Statement.NO_GENERATED_KEYS
+                ? physical.prepareStatement(sql)
+                : physical.prepareStatement(sql, autoGeneratedKeys);
+        if (cached != null) {
+            // Той самий SQL уже відкритий вище по стеку — віддаємо окремий, некешований statement
+            return statement;
+        }
+        CachedStatement created;
+        try {
+            created = new CachedStatement(statement);
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
+        }
+        statements.put(key, created);
+        return created.checkout();
+    }
+
+    /**
+     * Викликається при поверненні з'єднання до пулу: statement, які DAO забули закрити, знову вільні.
+     */
+    void releaseAll() {
+        for (CachedStatement cached : new ArrayList<>(statements.values())) {
+            if (cached.inUse) {
+                cached.reset();
+            }
+        }
+    }
+
+    void closeAll() {
+        List<CachedStatement> all = new ArrayList<>(statements.values());
+        statements.clear();
+        for (CachedStatement cached : all) {
+            cached.evict();
+        }
+    }
+
+    private static String normalize(String sql) {
+        return sql.trim().replaceAll("\\s+", " ");
+    }
+
+    private final class CachedStatement implements InvocationHandler {
+        private final PreparedStatement physicalStatement;
+        private final PreparedStatement proxy;
+        // Налаштування на момент prepare — відновлюються, щоб наступний DAO не успадкував чужі
+        private final int defaultFetchSize;
+        private final int defaultFetchDirection;
+        private final int defaultMaxRows;
+        private final int defaultMaxFieldSize;
+        private final int defaultQueryTimeout;
+        private boolean inUse;
+        private boolean evicted;
+        private boolean settingsChanged;
+
+        private CachedStatement(PreparedStatement physicalStatement) throws SQLException {
+            this.physicalStatement = physicalStatement;
+            this.defaultFetchSize = physicalStatement.getFetchSize();
+            this.defaultFetchDirection = physicalStatement.getFetchDirection();
+            this.defaultMaxRows = physicalStatement.getMaxRows();
+            this.defaultMaxFieldSize = physicalStatement.getMaxFieldSize();
+            this.defaultQueryTimeout = physicalStatement.getQueryTimeout();
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class}, this);
+        }
+
+        private PreparedStatement checkout() {
+            inUse = true;
+            return proxy;
+        }
+
+        private void reset() {
+            inUse = false;
+            try {
+                physicalStatement.clearParameters();
+                physicalStatement.clearBatch();
+                physicalStatement.clearWarnings();
+                if (settingsChanged) {
+                    physicalStatement.setFetchSize(defaultFetchSize);
+                    physicalStatement.setFetchDirection(defaultFetchDirection);
+                    physicalStatement.setMaxRows(defaultMaxRows);
+                    physicalStatement.setMaxFieldSize(defaultMaxFieldSize);
+                    physicalStatement.setQueryTimeout(defaultQueryTimeout);
+                    settingsChanged = false;
+                }
+            } catch (SQLException e) {
+                // Стан невідомий — такий statement більше не віддаємо
+                logger.log(Level.FINE, "Не вдалося очистити кешований statement, вилучаємо його", e);
+                discard();
+            }
+        }
+
+        private void discard() {
+            evicted = true;
+            statements.values().remove(this);
+            closeQuietly();
+        }
+
+        private void evict() {
+            evicted = true;
+            if (!inUse) {
+                closeQuietly();
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                physicalStatement.close();
+            } catch (SQLException e) {
+                logger.log(Level.FINE, "Помилка закриття statement", e);
+            }
+        }
+
+        @Override
+        public Object invoke(Object p, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (inUse) {
+                        if (evicted) {
+                            inUse = false;
+                            closeQuietly();
+                        } else {
+                            reset();
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return !inUse || physicalStatement.isClosed();
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return p == args[0];
+                case "hashCode":
+                    return System.identityHashCode(p);
+                case "setFetchSize":
+                case "setFetchDirection":
+                case "setMaxRows":
+                case "setLargeMaxRows":
+                case "setMaxFieldSize":
+                case "setQueryTimeout":
+                    settingsChanged = true;
+                    // fall through
+                default:
+                    if (!inUse) {
+                        throw new SQLException("Statement уже закрито");
+                    }
+                    try {
+                        return method.invoke(physicalStatement, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
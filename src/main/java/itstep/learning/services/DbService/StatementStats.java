@@ -0,0 +1,40 @@
+package itstep.learning.services.DbService;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Лічильники кешу PreparedStatement для одного SQL-запиту (сумарно по всіх з'єднаннях пулу).
+ * hit — запит повторно використав уже підготовлений statement, miss — statement готувався заново.
+ */
+public final class StatementStats {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double getHitRatio() {
+        long h = getHits();
+        long total = h + getMisses();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    @Override
+    public String toString() {
+        return "hits=" + getHits() + ", misses=" + getMisses()
+                + String.format(java.util.Locale.ROOT, ", hitRatio=%.2f", getHitRatio());
+    }
+}
@@ -0,0 +1,151 @@
+package itstep.learning.services.DbService;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Транзакція, прив'язана до поточного потоку.
+ * <p>
+ * Поки scope відкритий, усі DAO, що беруть з'єднання через {@link #acquire(DbService)},
+ * працюють в одній транзакції на одному з'єднанні. Вкладений {@link #begin(DbService)}
+ * приєднується до зовнішньої транзакції, а commit/rollback виконує лише зовнішній scope.
+ * <pre>
+ * try (TransactionScope tx = TransactionScope.begin(dbService)) {
+ *     userDao.updateUser(user);
+ *     userDao.updateUserPhones(userId, phones);
+ *     tx.commit();
+ * }
+ * </pre>
+ */
+public final class TransactionScope implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(TransactionScope.class.getName());
+    private static final ThreadLocal<TransactionScope> CURRENT = new ThreadLocal<>();
+
+    private final Connection connection;
+    private final TransactionScope outer;
+    private boolean committed;
+    private boolean rollbackOnly;
+    private boolean closed;
+
+    private TransactionScope(Connection connection, TransactionScope outer) {
+        this.connection = connection;
+        this.outer = outer;
+    }
+
+    /**
+     * Відкриває транзакцію (або приєднується до вже відкритої в цьому потоці).
+     */
+    public static TransactionScope begin(DbService dbService) throws SQLException {
+        TransactionScope current = CURRENT.get();
+        if (current != null) {
+            return new TransactionScope(current.connection, current);
+        }
+        Connection connection = dbService.getConnection();
+        try {
+            connection.setAutoCommit(false);
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        TransactionScope scope = new TransactionScope(connection, null);
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * З'єднання для однієї операції DAO: з поточної транзакції, якщо вона є, інакше нове з пулу.
+     * Результат завжди слід закривати (try-with-resources) — для з'єднання транзакції close() нічого не робить.
+     */
+    public static Connection acquire(DbService dbService) {
+        TransactionScope current = CURRENT.get();
+        return current == null ? dbService.getConnection() : current.nonClosingView();
+    }
+
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    public Connection getConnection() {
+        return nonClosingView();
+    }
+
+    public void commit() throws SQLException {
+        if (root().rollbackOnly) {
+            throw new SQLException("Транзакцію позначено на відкат, commit неможливий");
+        }
+        if (outer == null) {
+            connection.commit();
+        }
+        // Лише після успішного commit: інакше close() має відкотити транзакцію
+        committed = true;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (outer != null) {
+            // Вкладений scope без commit позначає всю транзакцію на відкат
+            if (!committed) {
+                root().rollbackOnly = true;
+            }
+            return;
+        }
+        CURRENT.remove();
+        try {
+            if (!committed || rollbackOnly) {
+                connection.rollback();
+                logger.fine("↩️ Транзакцію відкочено");
+            }
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "⚠️ Помилка завершення транзакції: " + e.getMessage(), e);
+            throw e;
+        } finally {
+            connection.close();
+        }
+    }
+
+    private TransactionScope root() {
+        return outer == null ? this : outer.root();
+    }
+
+    private Connection nonClosingView() {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            return null;
+                        case "commit":
+                        case "setAutoCommit":
+                            // Керування транзакцією належить scope, а не окремому DAO
+                            return null;
+                        case "rollback":
+                            if (args == null) {
+                                root().rollbackOnly = true;
+                                return null;
+                            }
+                            break;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            break;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
@@ -4,10 +4,14 @@ import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
 import com.google.inject.Singleton;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import itstep.learning.services.cache.CacheStats;
+import itstep.learning.services.cache.VerifiedTokenCache;
 import itstep.learning.services.config.ConfigService;
 import jakarta.inject.Inject;
 
@@ -20,6 +24,9 @@ import java.util.logging.Logger;
 public class JwtService {
 
     private final SecretKey secretKey;
+    // Парсер незмінний і потокобезпечний — створюється один раз на ключ
+    private final JwtParser parser;
+    private final VerifiedTokenCache<JsonElement> verifiedTokens;
     private final long tokenLifetime; // в секундах
     private final Gson gson = new Gson();
     private static final Logger LOGGER = Logger.getLogger(JwtService.class.getName());
@@ -39,6 +46,8 @@ public class JwtService {
         // Створюємо SecretKey для алгоритму HS256
         this.secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
         LOGGER.info("SecretKey успішно створено");
+        this.parser = Jwts.parserBuilder().setSigningKey(secretKey).build();
+        this.verifiedTokens = new VerifiedTokenCache<>(configService.getInt("jwt.cacheSize", 10_000));
 
         // Зчитуємо час життя токена (в секундах) з конфігурації
         this.tokenLifetime = configService.getInt("jwt.lifetime");
@@ -79,24 +88,35 @@ public class JwtService {
     /**
      * Перевіряє JWT та повертає payload у вигляді JsonElement.
      * Якщо токен недійсний або прострочений, повертає null.
+     * Уже перевірені токени беруться з кешу до моменту їх exp.
      *
      * @param jwtToken рядок JWT
-     * @return payload як JsonElement або null
+     * @return payload як JsonElement (власна копія викликача) або null
      */
     public JsonElement fromJwt(String jwtToken) {
-        LOGGER.info("Початок перевірки JWT...");
+        JsonElement payload = verifiedTokens.get(jwtToken, this::verify);
+        return payload == null ? null : payload.deepCopy();
+    }
+
+    /**
+     * Статистика кешу перевірених токенів (hit ratio, кількість та середній час повних перевірок).
+     */
+    public CacheStats getCacheStats() {
+        return verifiedTokens.stats();
+    }
+
+    private VerifiedTokenCache.Verified<JsonElement> verify(String jwtToken) {
+        LOGGER.fine("Перевірка підпису JWT...");
         try {
             // Розбір JWT та отримання значення поля subject, яке містить JSON payload
-            String jsonPayload = Jwts.parserBuilder()
-                    .setSigningKey(secretKey)
-                    .build()
-                    .parseClaimsJws(jwtToken)
-                    .getBody()
-                    .getSubject();
+            Claims claims = parser.parseClaimsJws(jwtToken).getBody();
+            String jsonPayload = claims.getSubject();
             LOGGER.fine("JWT успішно розібрано, отримано payload: " + jsonPayload);
+            Date expiration = claims.getExpiration();
             // Перетворення JSON рядка у JsonElement
-            return JsonParser.parseString(jsonPayload);
-        } catch (JwtException e) {
+            return new VerifiedTokenCache.Verified<>(JsonParser.parseString(jsonPayload),
+                    expiration == null ? 0 : expiration.getTime());
+        } catch (JwtException | IllegalArgumentException | com.google.gson.JsonParseException e) {
             LOGGER.warning("Невалідний або прострочений JWT: " + e.getMessage());
             return null;
         }
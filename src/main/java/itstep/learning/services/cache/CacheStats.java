@@ -0,0 +1,70 @@
+package itstep.learning.services.cache;
+
+import java.util.Locale;
+
+/**
+ * Знімок статистики кешу на момент виклику {@link TinyLfuCache#stats()}.
+ */
+public final class CacheStats {
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long loadCount;
+    private final long totalLoadNanos;
+    private final int size;
+    private final int maxSize;
+
+    CacheStats(long hitCount, long missCount, long evictionCount,
+               long loadCount, long totalLoadNanos, int size, int maxSize) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.loadCount = loadCount;
+        this.totalLoadNanos = totalLoadNanos;
+        this.size = size;
+        this.maxSize = maxSize;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public double getHitRatio() {
+        long total = hitCount + missCount;
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public long getLoadCount() {
+        return loadCount;
+    }
+
+    /**
+     * Середній час завантаження значення з джерела (промах кешу), мс.
+     */
+    public double getAverageLoadMillis() {
+        return loadCount == 0 ? 0.0 : totalLoadNanos / 1_000_000.0 / loadCount;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "size=%d/%d, hits=%d, misses=%d, hitRatio=%.3f, evictions=%d, loads=%d, avgLoad=%.2f ms",
+                size, maxSize, hitCount, missCount, getHitRatio(), evictionCount, loadCount, getAverageLoadMillis());
+    }
+}
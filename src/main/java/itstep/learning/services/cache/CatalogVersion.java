@@ -0,0 +1,35 @@
+package itstep.learning.services.cache;
+
+import com.google.inject.Singleton;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Версія каталогу (продукти + категорії) для умовних GET.
+ * <p>
+ * Кожен успішний запис у products/categories викликає {@link #bump()}. Стартове значення —
+ * час запуску в мілісекундах, тож після перезапуску версія не повторює видані раніше ETag.
+ * Читачі мають брати версію <b>до</b> звернення до DAO: якщо запис проскочить між ними,
+ * відповідь буде новішою за свій ETag, і наступний запит просто отримає повну відповідь.
+ */
+@Singleton
+public class CatalogVersion {
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    public long current() {
+        return version.get();
+    }
+
+    public long bump() {
+        return version.incrementAndGet();
+    }
+
+    /**
+     * Сильний ETag для версії; {@code variant} розрізняє представлення (наприклад, gzip).
+     */
+    public static String etag(long version, String variant) {
+        return variant == null || variant.isEmpty()
+                ? "\"c" + Long.toString(version, 36) + "\""
+                : "\"c" + Long.toString(version, 36) + "-" + variant + "\"";
+    }
+}
@@ -0,0 +1,215 @@
+package itstep.learning.services.cache;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import itstep.learning.services.config.ConfigService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Кеш готових тіл відповідей каталогу: уже серіалізований UTF-8 JSON і, якщо вигідно, його gzip.
+ * Влучання віддається одним {@code OutputStream.write} без Gson і без звернення до DAO.
+ * <p>
+ * Ключ будує викликач із нормалізованого запиту. Кожен запис прив'язаний до {@link CatalogVersion}:
+ * після будь-якого запису в каталог старі записи не віддаються, а при першому зверненні з новою
+ * версією кеш очищується повністю. Розмір обмежено кількістю записів
+ * ({@code cache.responses.maxSize}) та розміром одного запису ({@code cache.responses.maxEntryBytes}).
+ */
+@Singleton
+public class ResponseCache {
+    // Оцінка накладних витрат на запис: заголовки масивів, Entry, вузли LinkedHashMap
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+    private final CatalogVersion catalogVersion;
+    private final TinyLfuCache<String, Entry> cache;
+    private final int maxSize;
+    private final int maxEntryBytes;
+    private final boolean gzipEnabled;
+    private final int gzipMinBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder oversized = new LongAdder();
+    private volatile long cachedVersion;
+
+    @Inject
+    public ResponseCache(CatalogVersion catalogVersion, ConfigService configService) {
+        this.catalogVersion = catalogVersion;
+        this.maxSize = Math.max(1, configService.getInt("cache.responses.maxSize", 256));
+        this.maxEntryBytes = Math.max(1024, configService.getInt("cache.responses.maxEntryBytes", 256 * 1024));
+        this.gzipEnabled = configService.getBoolean("cache.responses.gzip", true);
+        this.gzipMinBytes = Math.max(0, configService.getInt("cache.responses.gzipMinBytes", 1024));
+        this.cache = new TinyLfuCache<>(maxSize);
+        this.cachedVersion = catalogVersion.current();
+    }
+
+    /**
+     * Запис для ключа, якщо він зібраний саме для {@code version}; інакше {@code null}.
+     */
+    public Entry get(String key, long version) {
+        if (version > cachedVersion) {
+            dropStale(version);
+        }
+        Entry entry = cache.get(key);
+        if (entry == null || entry.version != version) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry;
+    }
+
+    /**
+     * Готує запис (зі стисненням) і кешує його, якщо каталог не змінився з моменту
+     * {@code version} і запис не перевищує ліміт. Запис повертається в будь-якому разі,
+     * щоб викликач відправив ті самі байти.
+     */
+    public Entry put(String key, long version, byte[] json) {
+        Entry entry = new Entry(version, json, gzipEnabled && json.length >= gzipMinBytes ? gzip(json) : null);
+        if (entry.footprint(key) > maxEntryBytes) {
+            oversized.increment();
+        } else if (version == catalogVersion.current()) {
+            cache.put(key, entry);
+        }
+        return entry;
+    }
+
+    public Stats stats() {
+        long[] bytes = new long[3];
+        int[] entries = new int[1];
+        cache.forEach((key, entry) -> {
+            entries[0]++;
+            bytes[0] += entry.identity.length;
+            bytes[1] += entry.gzip != null ? entry.gzip.length : 0;
+            bytes[2] += entry.footprint(key);
+        });
+        return new Stats(hits.sum(), misses.sum(), oversized.sum(),
+                entries[0], maxSize, bytes[0], bytes[1], bytes[2]);
+    }
+
+    private synchronized void dropStale(long version) {
+        if (version > cachedVersion) {
+            cache.invalidateAll();
+            cachedVersion = version;
+        }
+    }
+
+    // Стиснений варіант зберігається лише тоді, коли він справді менший
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.size() < json.length ? bytes.toByteArray() : null;
+    }
+
+    public static final class Entry {
+        private final long version;
+        private final byte[] identity;
+        private final byte[] gzip;
+
+        private Entry(long version, byte[] identity, byte[] gzip) {
+            this.version = version;
+            this.identity = identity;
+            this.gzip = gzip;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public byte[] getIdentity() {
+            return identity;
+        }
+
+        /**
+         * Стиснене тіло або {@code null}, якщо стиснення вимкнене чи не дає виграшу.
+         */
+        public byte[] getGzip() {
+            return gzip;
+        }
+
+        private long footprint(String key) {
+            return ENTRY_OVERHEAD_BYTES + 2L * key.length() + identity.length + (gzip != null ? gzip.length : 0);
+        }
+    }
+
+    /**
+     * Знімок: влучання, промахи, записи, пропущені через розмір, та оцінка займаної пам'яті.
+     */
+    public static final class Stats {
+        private final long hitCount;
+        private final long missCount;
+        private final double hitRatio;
+        private final long oversizedCount;
+        private final int size;
+        private final int maxSize;
+        private final long identityBytes;
+        private final long gzipBytes;
+        private final long footprintBytes;
+
+        private Stats(long hitCount, long missCount, long oversizedCount, int size, int maxSize,
+                      long identityBytes, long gzipBytes, long footprintBytes) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.hitRatio = hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount);
+            this.oversizedCount = oversizedCount;
+            this.size = size;
+            this.maxSize = maxSize;
+            this.identityBytes = identityBytes;
+            this.gzipBytes = gzipBytes;
+            this.footprintBytes = footprintBytes;
+        }
+
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        public long getMissCount() {
+            return missCount;
+        }
+
+        public double getHitRatio() {
+            return hitRatio;
+        }
+
+        public long getOversizedCount() {
+            return oversizedCount;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public long getIdentityBytes() {
+            return identityBytes;
+        }
+
+        public long getGzipBytes() {
+            return gzipBytes;
+        }
+
+        public long getFootprintBytes() {
+            return footprintBytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "size=%d/%d, hits=%d, misses=%d, hitRatio=%.3f, oversized=%d, json=%d B, gzip=%d B, footprint=%d B",
+                    size, maxSize, hitCount, missCount, hitRatio, oversizedCount,
+                    identityBytes, gzipBytes, footprintBytes);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package itstep.learning.services.cache;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Обмежений за розміром кеш з політикою витіснення W-TinyLFU.
+ * <p>
+ * Нові записи потрапляють у невелике LRU-вікно (~1% місткості). Запис, що випадає з вікна,
+ * допускається до основної SLRU-області (probation 20% / protected 80%) лише якщо за оцінкою
+ * частоти (Count-Min Sketch) до нього звертались частіше, ніж до кандидата на витіснення.
+ * Так одноразові перегляди не виштовхують з кешу популярні записи.
+ * <p>
+ * Значення {@code null} не кешуються. Усі операції синхронізовані — кеш розрахований
+ * на дешеві операції над пам'яттю, завантаження з БД виконується поза блокуванням.
+ * Тому кожне завантаження має мітку: {@link #put} чи {@link #invalidate} того самого ключа
+ * під час завантаження знімає її, і завантажене (вже застаріле) значення не кешується.
+ */
+public final class TinyLfuCache<K, V> {
+    private final int maxSize;
+    private final int windowMax;
+    private final int protectedMax;
+
+    private final LinkedHashMap<K, V> window = new LinkedHashMap<>();
+    private final LinkedHashMap<K, V> probation = new LinkedHashMap<>();
+    private final LinkedHashMap<K, V> protectedArea = new LinkedHashMap<>();
+    private final FrequencySketch sketch;
+    // Незавершені завантаження: ключ → мітка останнього loader для нього
+    private final Map<K, Object> pendingLoads = new HashMap<>();
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long loadCount;
+    private long totalLoadNanos;
+
+    public TinyLfuCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+        this.windowMax = Math.max(1, maxSize / 100);
+        int mainMax = Math.max(1, maxSize - windowMax);
+        this.protectedMax = Math.max(1, mainMax * 8 / 10);
+        this.sketch = new FrequencySketch(maxSize);
+    }
+
+    public synchronized V get(K key) {
+        sketch.increment(key.hashCode());
+        V value = window.get(key);
+        if (value != null) {
+            moveToTail(window, key, value);
+        } else if ((value = probation.remove(key)) != null) {
+            promote(key, value);
+        } else if ((value = protectedArea.get(key)) != null) {
+            moveToTail(protectedArea, key, value);
+        }
+        if (value == null) {
+            missCount++;
+        } else {
+            hitCount++;
+        }
+        return value;
+    }
+
+    /**
+     * Значення з кешу або результат {@code loader} (який кешується, якщо не {@code null}
+     * і ключ не змінювався, поки loader працював). Час виконання loader враховується
+     * у статистиці завантажень.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        Object token = new Object();
+        synchronized (this) {
+            V value = get(key);
+            if (value != null) {
+                return value;
+            }
+            pendingLoads.put(key, token);
+        }
+        long start = System.nanoTime();
+        V value = null;
+        try {
+            value = loader.apply(key);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            synchronized (this) {
+                loadCount++;
+                totalLoadNanos += elapsed;
+                // Мітку зняв запис або новіший loader — результат може бути застарілим
+                if (pendingLoads.remove(key, token) && value != null) {
+                    store(key, value);
+                }
+            }
+        }
+        return value;
+    }
+
+    public synchronized void put(K key, V value) {
+        pendingLoads.remove(key);
+        if (value == null) {
+            invalidate(key);
+            return;
+        }
+        store(key, value);
+    }
+
+    private void store(K key, V value) {
+        if (window.containsKey(key)) {
+            moveToTail(window, key, value);
+            return;
+        }
+        if (probation.containsKey(key)) {
+            probation.put(key, value);
+            return;
+        }
+        if (protectedArea.containsKey(key)) {
+            moveToTail(protectedArea, key, value);
+            return;
+        }
+        sketch.increment(key.hashCode());
+        window.put(key, value);
+        if (window.size() > windowMax) {
+            Map.Entry<K, V> candidate = pollEldest(window);
+            admit(candidate.getKey(), candidate.getValue());
+        }
+    }
+
+    public synchronized void invalidate(K key) {
+        pendingLoads.remove(key);
+        if (window.remove(key) == null && probation.remove(key) == null) {
+            protectedArea.remove(key);
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        pendingLoads.clear();
+        window.clear();
+        probation.clear();
+        protectedArea.clear();
+    }
+
+    /**
+     * Обхід усіх записів під блокуванням кешу (для звітів, наприклад підрахунку займаної пам'яті).
+     * Порядок не визначено, частоти та статистика не змінюються.
+     */
+    public synchronized void forEach(BiConsumer<? super K, ? super V> action) {
+        window.forEach(action);
+        probation.forEach(action);
+        protectedArea.forEach(action);
+    }
+
+    public synchronized int size() {
+        return window.size() + probation.size() + protectedArea.size();
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(hitCount, missCount, evictionCount, loadCount, totalLoadNanos, size(), maxSize);
+    }
+
+    // Кандидат з вікна змагається з найстарішим записом probation за оцінкою частоти
+    private void admit(K key, V value) {
+        if (probation.size() + protectedArea.size() < maxSize - windowMax) {
+            probation.put(key, value);
+            return;
+        }
+        LinkedHashMap<K, V> victimArea = probation.isEmpty() ? protectedArea : probation;
+        K victim = victimArea.keySet().iterator().next();
+        if (sketch.frequency(key.hashCode()) > sketch.frequency(victim.hashCode())) {
+            victimArea.remove(victim);
+            probation.put(key, value);
+        }
+        evictionCount++;
+    }
+
+    private void promote(K key, V value) {
+        protectedArea.put(key, value);
+        if (protectedArea.size() > protectedMax) {
+            Map.Entry<K, V> demoted = pollEldest(protectedArea);
+            probation.put(demoted.getKey(), demoted.getValue());
+        }
+    }
+
+    private static <K, V> void moveToTail(LinkedHashMap<K, V> area, K key, V value) {
+        area.remove(key);
+        area.put(key, value);
+    }
+
+    private static <K, V> Map.Entry<K, V> pollEldest(LinkedHashMap<K, V> area) {
+        Iterator<Map.Entry<K, V>> iterator = area.entrySet().iterator();
+        Map.Entry<K, V> head = iterator.next();
+        Map.Entry<K, V> eldest = Map.entry(head.getKey(), head.getValue());
+        iterator.remove();
+        return eldest;
+    }
+
+    /**
+     * Count-Min Sketch з 4-бітними лічильниками (обмеження 15) та періодичним старінням:
+     * після {@code 10 * maxSize} збільшень усі лічильники діляться навпіл.
+     */
+    static final class FrequencySketch {
+        private static final int DEPTH = 4;
+        private static final int[] SEEDS = {0x97cb3127, 0x5f3f9e8d, 0x2c1b3c6d, 0x297a2d39};
+        private static final int MAX_COUNT = 15;
+
+        private final byte[][] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int maxSize) {
+            int width = Integer.highestOneBit(Math.max(16, maxSize * 2 - 1)) << 1;
+            this.table = new byte[DEPTH][width];
+            this.mask = width - 1;
+            this.sampleSize = Math.max(10, maxSize * 10);
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int row = 0; row < DEPTH; row++) {
+                int index = index(hash, row);
+                if (table[row][index] < MAX_COUNT) {
+                    table[row][index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        int frequency(int hash) {
+            int min = MAX_COUNT;
+            for (int row = 0; row < DEPTH; row++) {
+                min = Math.min(min, table[row][index(hash, row)]);
+            }
+            return min;
+        }
+
+        private int index(int hash, int row) {
+            int h = (hash ^ SEEDS[row]) * 0x9e3779b9;
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        private void reset() {
+            for (byte[] row : table) {
+                for (int i = 0; i < row.length; i++) {
+                    row[i] >>>= 1;
+                }
+            }
+            additions /= 2;
+        }
+    }
+}
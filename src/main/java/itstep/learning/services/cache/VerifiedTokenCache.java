@@ -0,0 +1,117 @@
+package itstep.learning.services.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Кеш уже перевірених JWT: повторний запит з тим самим bearer-токеном не перераховує HMAC
+ * і не розбирає JSON. Ключ — сегмент підпису токена; при влучанні додатково звіряється весь токен,
+ * тож чужий payload з "позиченим" підписом отримає промах і пройде повну перевірку.
+ * <p>
+ * Запис живе рівно до {@code exp} токена; токени без {@code exp} та невалідні токени не кешуються.
+ * Розмір обмежено {@code maxSize}: при переповненні спершу викидаються прострочені записи,
+ * а якщо місця все одно немає — новий токен просто не кешується.
+ */
+public final class VerifiedTokenCache<V> {
+
+    /**
+     * Результат перевірки токена: значення та момент закінчення дії (epoch millis, 0 — без exp).
+     */
+    public static final class Verified<V> {
+        private final V value;
+        private final long expiresAtMillis;
+
+        public Verified(V value, long expiresAtMillis) {
+            this.value = value;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    private static final class Entry<V> {
+        private final String token;
+        private final V value;
+        private final long expiresAtMillis;
+
+        private Entry(String token, V value, long expiresAtMillis) {
+            this.token = token;
+            this.value = value;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    private final int maxSize;
+    private final Map<String, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder verifications = new LongAdder();
+    private final LongAdder verificationNanos = new LongAdder();
+
+    public VerifiedTokenCache(int maxSize) {
+        this.maxSize = Math.max(1, maxSize);
+    }
+
+    /**
+     * Значення для токена з кешу або результат {@code verifier}.
+     * verifier повертає {@code null} для невалідного токена.
+     */
+    public V get(String token, Function<String, Verified<V>> verifier) {
+        if (token == null) {
+            return null;
+        }
+        String signature = token.substring(token.lastIndexOf('.') + 1);
+        long now = System.currentTimeMillis();
+
+        Entry<V> entry = entries.get(signature);
+        if (entry != null) {
+            if (now >= entry.expiresAtMillis) {
+                if (entries.remove(signature, entry)) {
+                    evictions.increment();
+                }
+            } else if (entry.token.equals(token)) {
+                hits.increment();
+                return entry.value;
+            }
+        }
+        misses.increment();
+
+        long start = System.nanoTime();
+        Verified<V> verified = verifier.apply(token);
+        verificationNanos.add(System.nanoTime() - start);
+        verifications.increment();
+
+        if (verified == null) {
+            return null;
+        }
+        if (verified.expiresAtMillis > now && !signature.isEmpty()) {
+            if (entries.size() >= maxSize) {
+                purgeExpired(now);
+            }
+            if (entries.size() < maxSize) {
+                entries.put(signature, new Entry<>(token, verified.value, verified.expiresAtMillis));
+            }
+        }
+        return verified.value;
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(),
+                verifications.sum(), verificationNanos.sum(), entries.size(), maxSize);
+    }
+
+    private void purgeExpired(long now) {
+        entries.entrySet().removeIf(e -> {
+            boolean expired = now >= e.getValue().expiresAtMillis;
+            if (expired) {
+                evictions.increment();
+            }
+            return expired;
+        });
+    }
+}
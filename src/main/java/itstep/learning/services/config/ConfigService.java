@@ -5,4 +5,22 @@ public interface ConfigService {
     String getString(String key);
     int getInt(String key);
     boolean getBoolean(String key);
+    boolean hasKey(String path);
+
+    // Необов'язкові налаштування: якщо ключа немає — повертаємо значення за замовчуванням
+    default String getString(String key, String defaultValue) {
+        return hasKey(key) ? getString(key) : defaultValue;
+    }
+
+    default int getInt(String key, int defaultValue) {
+        return hasKey(key) ? getInt(key) : defaultValue;
+    }
+
+    default long getLong(String key, long defaultValue) {
+        return hasKey(key) ? Long.parseLong(getString(key)) : defaultValue;
+    }
+
+    default boolean getBoolean(String key, boolean defaultValue) {
+        return hasKey(key) ? getBoolean(key) : defaultValue;
+    }
 }
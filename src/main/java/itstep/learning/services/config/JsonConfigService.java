@@ -50,7 +50,7 @@ public class JsonConfigService implements ConfigService {
 
     @Override
     public Object getValue(String path) {
-        logger.info("🔹 JsonConfigService: запрашивается значение для ключа " + path);
+        logger.fine(() -> "🔹 JsonConfigService: запрашивается значение для ключа " + path);
         String[] keys = path.split("\\.");
         JsonElement current = config;
 
@@ -65,6 +65,18 @@ public class JsonConfigService implements ConfigService {
         return current;
     }
 
+    @Override
+    public boolean hasKey(String path) {
+        JsonElement current = config;
+        for (String key : path.split("\\.")) {
+            if (current == null || !current.isJsonObject() || !current.getAsJsonObject().has(key)) {
+                return false;
+            }
+            current = current.getAsJsonObject().get(key);
+        }
+        return current != null && !current.isJsonNull();
+    }
+
     @Override
     public int getInt(String key) {
         return ((JsonElement) getValue(key)).getAsInt();
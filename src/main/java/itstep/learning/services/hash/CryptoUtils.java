@@ -0,0 +1,140 @@
+package itstep.learning.services.hash;
+
+import javax.crypto.SecretKeyFactory;
+import java.security.DigestException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+
+/**
+ * Спільні криптографічні примітиви без зайвих алокацій.
+ * <p>
+ * {@link MessageDigest} і {@link SecretKeyFactory} не потокобезпечні, а {@code getInstance}
+ * щоразу обходить провайдери, тому екземпляри тримаються по одному на потік.
+ * Hex/Base64 кодуються через таблиці у заздалегідь виділений {@code char[]}.
+ */
+public final class CryptoUtils {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final char[] BASE64 =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+    private static final int MAX_DIGEST_LENGTH = 64;
+
+    private static final ThreadLocal<MessageDigest> MD5 = ThreadLocal.withInitial(() -> digestInstance("MD5"));
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> digestInstance("SHA-256"));
+    private static final ThreadLocal<SecretKeyFactory> PBKDF2 =
+            ThreadLocal.withInitial(() -> keyFactoryInstance("PBKDF2WithHmacSHA256"));
+    // Буфер під результат дайджесту, щоб digest() не виділяв новий масив на кожен виклик
+    private static final ThreadLocal<byte[]> DIGEST_BUFFER = ThreadLocal.withInitial(() -> new byte[MAX_DIGEST_LENGTH]);
+
+    private CryptoUtils() {
+    }
+
+    public static MessageDigest md5() {
+        MessageDigest md = MD5.get();
+        md.reset();
+        return md;
+    }
+
+    public static MessageDigest sha256() {
+        MessageDigest md = SHA256.get();
+        md.reset();
+        return md;
+    }
+
+    public static SecretKeyFactory pbkdf2() {
+        return PBKDF2.get();
+    }
+
+    /**
+     * Дайджест у hex (нижній регістр); проміжний масив байтів не виділяється.
+     */
+    public static String digestHex(MessageDigest md, byte[] input) {
+        byte[] buffer = DIGEST_BUFFER.get();
+        int length = finish(md, input, buffer);
+        char[] out = new char[length * 2];
+        encodeHex(buffer, 0, length, out, 0);
+        return new String(out);
+    }
+
+    /**
+     * Дайджест у Base64 (зі стандартним алфавітом), обрізаний до {@code maxChars} символів.
+     */
+    public static String digestBase64(MessageDigest md, byte[] input, int maxChars) {
+        byte[] buffer = DIGEST_BUFFER.get();
+        int length = finish(md, input, buffer);
+        char[] out = new char[Math.min(maxChars, base64Length(length))];
+        encodeBase64(buffer, 0, length, out, 0);
+        return new String(out);
+    }
+
+    public static String toHex(byte[] bytes) {
+        char[] out = new char[bytes.length * 2];
+        encodeHex(bytes, 0, bytes.length, out, 0);
+        return new String(out);
+    }
+
+    /**
+     * Пише {@code length} байтів як hex у {@code out}, починаючи з {@code outOffset}.
+     *
+     * @return кількість записаних символів
+     */
+    public static int encodeHex(byte[] bytes, int offset, int length, char[] out, int outOffset) {
+        int j = outOffset;
+        for (int i = offset; i < offset + length; i++) {
+            int b = bytes[i] & 0xFF;
+            out[j++] = HEX[b >>> 4];
+            out[j++] = HEX[b & 0x0F];
+        }
+        return j - outOffset;
+    }
+
+    public static int base64Length(int byteCount) {
+        return (byteCount + 2) / 3 * 4;
+    }
+
+    /**
+     * Пише Base64 (з '=' доповненням) у {@code out}; зупиняється, коли {@code out} заповнено.
+     *
+     * @return кількість записаних символів
+     */
+    public static int encodeBase64(byte[] bytes, int offset, int length, char[] out, int outOffset) {
+        int j = outOffset;
+        int end = offset + length;
+        int limit = out.length;
+        for (int i = offset; i < end && j < limit; i += 3) {
+            int b0 = bytes[i] & 0xFF;
+            int b1 = i + 1 < end ? bytes[i + 1] & 0xFF : 0;
+            int b2 = i + 2 < end ? bytes[i + 2] & 0xFF : 0;
+            int triple = (b0 << 16) | (b1 << 8) | b2;
+            out[j++] = BASE64[(triple >>> 18) & 0x3F];
+            if (j < limit) out[j++] = BASE64[(triple >>> 12) & 0x3F];
+            if (j < limit) out[j++] = i + 1 < end ? BASE64[(triple >>> 6) & 0x3F] : '=';
+            if (j < limit) out[j++] = i + 2 < end ? BASE64[triple & 0x3F] : '=';
+        }
+        return j - outOffset;
+    }
+
+    private static int finish(MessageDigest md, byte[] input, byte[] buffer) {
+        md.update(input);
+        try {
+            return md.digest(buffer, 0, buffer.length);
+        } catch (DigestException e) {
+            throw new IllegalStateException("Дайджест " + md.getAlgorithm() + " довший за буфер", e);
+        }
+    }
+
+    private static MessageDigest digestInstance(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Алгоритм " + algorithm + " недоступний", e);
+        }
+    }
+
+    private static SecretKeyFactory keyFactoryInstance(String algorithm) {
+        try {
+            return SecretKeyFactory.getInstance(algorithm);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Алгоритм " + algorithm + " недоступний", e);
+        }
+    }
+}
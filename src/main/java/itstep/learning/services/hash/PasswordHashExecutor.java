@@ -0,0 +1,162 @@
+package itstep.learning.services.hash;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import itstep.learning.services.config.ConfigService;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Виконавець дорогих операцій з паролями (BCrypt) на окремому пулі розміром з кількість ядер.
+ * <p>
+ * Потоки контейнера не блокуються на хешуванні: сервлет переходить в async і продовжує відповідь,
+ * коли задача завершиться. Черга обмежена — при переповненні {@link #submit(Callable)} кидає
+ * {@link RejectedExecutionException}, і сервлет відповідає 503 з {@code Retry-After}.
+ * <p>
+ * Побічні записи в БД після хешування (збереження перехешованого пароля) виконуються на окремому
+ * потоці {@link #getStoreExecutor()}: очікування з'єднання з пулу не забирає потоки BCrypt у входів.
+ */
+@Singleton
+public class PasswordHashExecutor {
+    private static final Logger logger = Logger.getLogger(PasswordHashExecutor.class.getName());
+
+    private final ThreadPoolExecutor executor;
+    private final ThreadPoolExecutor storeExecutor;
+    private final int threads;
+    private final int queueSize;
+    private final long asyncTimeoutMs;
+    // Експоненційне ковзне середнє тривалості задачі — для оцінки Retry-After
+    private final AtomicLong avgTaskNanos = new AtomicLong(TimeUnit.MILLISECONDS.toNanos(250));
+    private final LongAdder rejected = new LongAdder();
+
+    @Inject
+    public PasswordHashExecutor(ConfigService configService) {
+        this.threads = Math.max(1, configService.getInt("auth.hash.threads",
+                Runtime.getRuntime().availableProcessors()));
+        this.queueSize = Math.max(1, configService.getInt("auth.hash.queueSize", 64));
+        this.asyncTimeoutMs = Math.max(1_000, configService.getLong("auth.hash.asyncTimeoutMs", 30_000));
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                r -> {
+                    Thread thread = new Thread(r, "password-hash-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.storeExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                r -> {
+                    Thread thread = new Thread(r, "password-hash-store");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // Запис необов'язковий: відкинутий перехеш повториться при наступному вході
+                (r, pool) -> logger.fine("Черга запису хешів заповнена, задачу відкинуто"));
+        logger.info("✅ PasswordHashExecutor: потоків " + threads + ", черга " + queueSize);
+    }
+
+    /**
+     * Ставить задачу в чергу пулу.
+     *
+     * @throws RejectedExecutionException якщо черга заповнена
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                long startedAt = System.nanoTime();
+                try {
+                    future.complete(task.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    recordDuration(System.nanoTime() - startedAt);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            logger.warning("⚠️ Черга хешування паролів заповнена (" + executor.getQueue().size() + ")");
+            throw e;
+        }
+        return future;
+    }
+
+    public CompletableFuture<Boolean> checkpw(String password, String hash) {
+        return submit(() -> {
+            try {
+                return hash != null && BCrypt.checkpw(password, hash);
+            } catch (IllegalArgumentException e) {
+                // Пошкоджений або не-BCrypt хеш у БД — вважаємо пароль невірним
+                logger.log(Level.WARNING, "⚠️ Некоректний формат хешу пароля: " + e.getMessage());
+                return false;
+            }
+        });
+    }
+
+    public CompletableFuture<String> hashpw(String password, int cost) {
+        return submit(() -> BCrypt.hashpw(password, BCrypt.gensalt(cost)));
+    }
+
+    /**
+     * Орієнтовний час (секунди), за який звільниться поточна черга.
+     */
+    public int getRetryAfterSeconds() {
+        long queued = executor.getQueue().size() + executor.getActiveCount();
+        long waitNanos = queued * avgTaskNanos.get() / threads;
+        return (int) Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+    }
+
+    /**
+     * Тайм-аут async-запиту, що чекає на пул: не менший за {@code auth.hash.asyncTimeoutMs}
+     * і за подвоєний час розбору повної черги з поточною середньою тривалістю задачі.
+     */
+    public long getAsyncTimeoutMs() {
+        long fullQueueNanos = (queueSize + threads) * avgTaskNanos.get() / threads;
+        return Math.max(asyncTimeoutMs, 2 * TimeUnit.NANOSECONDS.toMillis(fullQueueNanos));
+    }
+
+    /**
+     * Виконавець для коротких записів у БД після хешування (наприклад, {@code thenAcceptAsync}).
+     * Один потік з обмеженою чергою; при переповненні задача відкидається.
+     */
+    public Executor getStoreExecutor() {
+        return storeExecutor;
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+            // Після пулу хешування: його останні задачі ще могли поставити запис
+            storeExecutor.shutdown();
+            if (!storeExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                storeExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            storeExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void recordDuration(long nanos) {
+        avgTaskNanos.getAndUpdate(avg -> avg + (nanos - avg) / 8);
+    }
+}
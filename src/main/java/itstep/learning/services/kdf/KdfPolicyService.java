@@ -0,0 +1,136 @@
+package itstep.learning.services.kdf;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import itstep.learning.services.config.ConfigService;
+import org.mindrot.jbcrypt.BCrypt;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Logger;
+
+/**
+ * Політика вартості KDF, підібрана під залізо.
+ * <p>
+ * При старті заміряє BCrypt і PBKDF2 на цьому хості та обирає вартість, за якої одне хешування
+ * займає приблизно {@code auth.kdf.targetMs}. Явні значення в конфігурації
+ * ({@code auth.kdf.bcryptCost}, {@code auth.kdf.pbkdf2Iterations}) вимикають калібрування.
+ * BCrypt зберігає алгоритм і вартість у самому хеші ({@code $2a$12$...}), тому
+ * {@link #needsRehash(String)} може визначити застарілий хеш без окремих колонок.
+ */
+@Singleton
+public class KdfPolicyService {
+    private static final Logger logger = Logger.getLogger(KdfPolicyService.class.getName());
+
+    public static final String PBKDF2_ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int BCRYPT_PROBE_COST = 8;
+    private static final int PBKDF2_PROBE_ITERATIONS = 20_000;
+    private static final int PROBE_RUNS = 3;
+
+    private final long targetMs;
+    private final int bcryptCost;
+    private final int pbkdf2Iterations;
+
+    @Inject
+    public KdfPolicyService(ConfigService configService) {
+        this.targetMs = Math.max(1, configService.getLong("auth.kdf.targetMs", 100));
+        // Нижня межа — колишня фіксована вартість gensalt(12): калібрування може лише зберегти
+        // або підняти стійкість; послабити її можна тільки явним auth.kdf.minBcryptCost
+        int minCost = Math.max(4, configService.getInt("auth.kdf.minBcryptCost", 12));
+        int maxCost = Math.min(31, Math.max(minCost, configService.getInt("auth.kdf.maxBcryptCost", 16)));
+        int minIterations = Math.max(1, configService.getInt("auth.kdf.minPbkdf2Iterations", 10_000));
+
+        this.bcryptCost = configService.hasKey("auth.kdf.bcryptCost")
+                ? configService.getInt("auth.kdf.bcryptCost")
+                : calibrateBcrypt(minCost, maxCost);
+        this.pbkdf2Iterations = configService.hasKey("auth.kdf.pbkdf2Iterations")
+                ? configService.getInt("auth.kdf.pbkdf2Iterations")
+                : calibratePbkdf2(minIterations);
+
+        logger.info("🔐 KDF-політика: bcrypt cost=" + bcryptCost + ", pbkdf2 iterations=" + pbkdf2Iterations
+                + " (ціль " + targetMs + " мс)");
+    }
+
+    public int getBcryptCost() {
+        return bcryptCost;
+    }
+
+    public int getPbkdf2Iterations() {
+        return pbkdf2Iterations;
+    }
+
+    public long getTargetMs() {
+        return targetMs;
+    }
+
+    /**
+     * Чи слід перехешувати пароль після успішного входу: лише BCrypt-хеш з меншою вартістю.
+     * Вниз не перехешовуємо — калібрування на повільнішому чи зайнятому хості обрало б меншу
+     * вартість, і хеші послаблювались би та «стрибали» між перезапусками. Щоб зафіксувати
+     * вартість, задайте {@code auth.kdf.bcryptCost}.
+     */
+    public boolean needsRehash(String storedHash) {
+        int storedCost = bcryptCostOf(storedHash);
+        return storedCost >= 0 && storedCost < bcryptCost;
+    }
+
+    /**
+     * Вартість з хешу формату {@code $2a$NN$...}, або -1, якщо це не BCrypt.
+     */
+    public static int bcryptCostOf(String hash) {
+        if (hash == null || hash.length() < 7 || hash.charAt(0) != '$' || hash.charAt(1) != '2'
+                || hash.charAt(3) != '$' || hash.charAt(6) != '$') {
+            return -1;
+        }
+        char tens = hash.charAt(4);
+        char units = hash.charAt(5);
+        if (!Character.isDigit(tens) || !Character.isDigit(units)) {
+            return -1;
+        }
+        return (tens - '0') * 10 + (units - '0');
+    }
+
+    // Кожен +1 до вартості BCrypt подвоює час, тому достатньо одного заміру на малій вартості
+    private int calibrateBcrypt(int minCost, int maxCost) {
+        String salt = BCrypt.gensalt(BCRYPT_PROBE_COST);
+        BCrypt.hashpw("calibration", salt); // прогрів JIT
+        long probeNanos = Long.MAX_VALUE;
+        for (int i = 0; i < PROBE_RUNS; i++) {
+            long startedAt = System.nanoTime();
+            BCrypt.hashpw("calibration", salt);
+            probeNanos = Math.min(probeNanos, System.nanoTime() - startedAt);
+        }
+        long targetNanos = targetMs * 1_000_000L;
+        int cost = minCost;
+        while (cost < maxCost && probeNanos * (1L << (cost + 1 - BCRYPT_PROBE_COST)) <= targetNanos) {
+            cost++;
+        }
+        logger.info("⏱️ BCrypt cost " + BCRYPT_PROBE_COST + " = " + probeNanos / 1_000 + " мкс → обрано cost " + cost);
+        return cost;
+    }
+
+    // Час PBKDF2 лінійний за кількістю ітерацій
+    private int calibratePbkdf2(int minIterations) {
+        try {
+            SecretKeyFactory factory = SecretKeyFactory.getInstance(PBKDF2_ALGORITHM);
+            byte[] salt = "calibration-salt".getBytes(StandardCharsets.UTF_8);
+            PBEKeySpec spec = new PBEKeySpec("calibration".toCharArray(), salt, PBKDF2_PROBE_ITERATIONS, 256);
+            factory.generateSecret(spec); // прогрів JIT
+            long probeNanos = Long.MAX_VALUE;
+            for (int i = 0; i < PROBE_RUNS; i++) {
+                long startedAt = System.nanoTime();
+                factory.generateSecret(spec);
+                probeNanos = Math.min(probeNanos, System.nanoTime() - startedAt);
+            }
+            long iterations = (long) ((double) targetMs * 1_000_000L / Math.max(1, probeNanos) * PBKDF2_PROBE_ITERATIONS);
+            int result = (int) Math.max(minIterations, Math.min(Integer.MAX_VALUE, iterations));
+            logger.info("⏱️ PBKDF2 " + PBKDF2_PROBE_ITERATIONS + " ітерацій = " + probeNanos / 1_000
+                    + " мкс → обрано " + result);
+            return result;
+        } catch (Exception e) {
+            logger.warning("⚠️ Калібрування PBKDF2 не вдалося: " + e.getMessage() + ", використовуємо " + minIterations);
+            return minIterations;
+        }
+    }
+}
@@ -5,4 +5,9 @@ import javax.crypto.spec.PBEKeySpec;
 
 public interface KdfService {
     String dk(String password, String salt);
-}
\ No newline at end of file
+
+    /**
+     * Перевіряє пароль за збереженим результатом {@link #dk}, з тими параметрами, з якими його отримано.
+     */
+    boolean verify(String password, String salt, String storedDk);
+}
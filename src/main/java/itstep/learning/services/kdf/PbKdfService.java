@@ -1,36 +1,94 @@
 package itstep.learning.services.kdf;
 
-import itstep.learning.services.hash.HashService;
+import com.google.inject.Inject;
+import itstep.learning.services.hash.CryptoUtils;
 
-import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 
+/**
+ * PBKDF2-HMAC-SHA256. Результат містить алгоритм і кількість ітерацій:
+ * {@code pbkdf2-sha256$<ітерації>$<hex>} — як BCrypt зберігає вартість у хеші.
+ * Тому збережений ключ відтворюється і після перезапуску, на якому калібрування
+ * {@link KdfPolicyService} обрало іншу кількість ітерацій. Старі значення без префікса
+ * (голий hex) перевіряються з колишньою фіксованою кількістю {@value #LEGACY_ITERATIONS}.
+ */
 public class PbKdfService implements KdfService {
-    private final int iterationCount = 10000; // Количество итераций
+    private static final String PREFIX = "pbkdf2-sha256";
+    private static final char SEPARATOR = '$';
+    // Кількість ітерацій до введення формату з префіксом
+    static final int LEGACY_ITERATIONS = 10_000;
+
+    private final int iterationCount; // Количество итераций для новых ключей — подбирается KdfPolicyService под хост
     private final int keyLength = 256; // Длина ключа
 
+    @Inject
+    public PbKdfService(KdfPolicyService kdfPolicyService) {
+        this.iterationCount = kdfPolicyService.getPbkdf2Iterations();
+    }
+
     @Override
     public String dk(String password, String salt) {
+        return PREFIX + SEPARATOR + iterationCount + SEPARATOR + derive(password, salt, iterationCount);
+    }
+
+    @Override
+    public boolean verify(String password, String salt, String storedDk) {
+        if (storedDk == null) {
+            return false;
+        }
+        if (!storedDk.startsWith(PREFIX + SEPARATOR)) {
+            return isLegacyHex(storedDk) && matches(derive(password, salt, LEGACY_ITERATIONS), storedDk);
+        }
+        int split = storedDk.indexOf(SEPARATOR, PREFIX.length() + 1);
+        if (split < 0) {
+            return false;
+        }
+        int iterations;
         try {
-            // Алгоритм PBKDF2 с HMAC SHA-256
-            String algorithm = "PBKDF2WithHmacSHA256";
-
-            // Генерация производного ключа
-            SecretKeyFactory factory = SecretKeyFactory.getInstance(algorithm);
-            PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt.getBytes(), iterationCount, keyLength);
-            byte[] hash = factory.generateSecret(spec).getEncoded();
-
-            // Преобразование в шестнадцатеричную строку
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xFF & b);
-                if (hex.length() == 1) hexString.append('0');
-                hexString.append(hex);
+            iterations = Integer.parseInt(storedDk.substring(PREFIX.length() + 1, split));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (iterations <= 0) {
+            return false;
+        }
+        return matches(derive(password, salt, iterations), storedDk.substring(split + 1));
+    }
+
+    // Порівняння за сталий час
+    private static boolean matches(String expectedHex, String storedHex) {
+        return MessageDigest.isEqual(
+                expectedHex.getBytes(StandardCharsets.US_ASCII),
+                storedHex.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private boolean isLegacyHex(String value) {
+        if (value.length() != keyLength / 4) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
             }
+        }
+        return true;
+    }
+
+    private String derive(String password, String salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt.getBytes(), iterations, keyLength);
+        try {
+            // SecretKeyFactory (PBKDF2 з HMAC SHA-256) — один на потік, без пошуку провайдера на кожен виклик
+            byte[] hash = CryptoUtils.pbkdf2().generateSecret(spec).getEncoded();
 
-            return hexString.toString();
+            // Перетворення в шістнадцятковий рядок через таблицю
+            return CryptoUtils.toHex(hash);
         } catch (Exception e) {
             throw new RuntimeException("Ошибка при генерации ключа: " + e.getMessage(), e);
+        } finally {
+            spec.clearPassword();
         }
     }
-}
\ No newline at end of file
+}
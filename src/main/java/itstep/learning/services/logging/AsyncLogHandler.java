@@ -0,0 +1,109 @@
+package itstep.learning.services.logging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * Асинхронний обробник JUL: записи складаються в обмежений кільцевий буфер, а форматування
+ * та I/O виконують делеговані обробники на окремому потоці.
+ * <p>
+ * {@link #publish(LogRecord)} ніколи не блокує потік запиту: якщо буфер повний, запис
+ * відкидається і враховується в {@link #getDroppedCount()}. Джерело (клас/метод) не визначається
+ * обходом стеку в потоці запиту — у виводі замість нього буде ім'я логера.
+ */
+public class AsyncLogHandler extends Handler {
+    private static final int DRAIN_BATCH = 256;
+
+    private final Handler[] delegates;
+    private final BlockingQueue<LogRecord> buffer;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread worker;
+    private volatile boolean closed;
+
+    public AsyncLogHandler(int capacity, Handler... delegates) {
+        this.delegates = delegates.clone();
+        this.buffer = new ArrayBlockingQueue<>(Math.max(16, capacity));
+        this.worker = new Thread(this::drainLoop, "async-log-writer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) {
+            return;
+        }
+        // Без цього форматер на потоці запису спробує визначити джерело за чужим стеком
+        record.setSourceClassName(record.getLoggerName());
+        if (!buffer.offer(record)) {
+            dropped.increment();
+        }
+    }
+
+    @Override
+    public void flush() {
+        for (Handler delegate : delegates) {
+            delegate.flush();
+        }
+    }
+
+    /**
+     * Зупиняє потік і синхронно дописує все, що залишилось у буфері. Делеговані обробники
+     * не закриваються — ними володіє той, хто їх передав.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        worker.interrupt();
+        try {
+            worker.join(2_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<LogRecord> rest = new ArrayList<>();
+        buffer.drainTo(rest);
+        rest.forEach(this::deliver);
+        flush();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public int getQueuedCount() {
+        return buffer.size();
+    }
+
+    private void drainLoop() {
+        List<LogRecord> batch = new ArrayList<>(DRAIN_BATCH);
+        while (!closed) {
+            try {
+                batch.add(buffer.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            buffer.drainTo(batch, DRAIN_BATCH - 1);
+            batch.forEach(this::deliver);
+            batch.clear();
+            if (buffer.isEmpty()) {
+                flush();
+            }
+        }
+    }
+
+    private void deliver(LogRecord record) {
+        for (Handler delegate : delegates) {
+            try {
+                delegate.publish(record);
+            } catch (RuntimeException e) {
+                reportError("Помилка делегованого обробника логів", e, ErrorManager.WRITE_FAILURE);
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package itstep.learning.services.logging;
+
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Тонкий фасад над java.util.logging для гарячих шляхів.
+ * <p>
+ * Звичайні повідомлення гарячих шляхів пишуться як {@code logger.fine(() -> ...)}: рядок будується
+ * лише тоді, коли рівень увімкнено, тож вимкнений FINE коштує одну перевірку рівня.
+ * {@link #event} пише структурований рядок {@code подія ключ=значення ...}, який легко розбирати
+ * в агрегаторі логів.
+ */
+public final class Log {
+    public static final String APP_LOGGER = "itstep.learning";
+    // JUL тримає логери через слабкі посилання — без сильного посилання налаштування загубиться
+    private static final Logger APP = Logger.getLogger(APP_LOGGER);
+
+    private Log() {
+    }
+
+    /**
+     * Структурована подія; пари ключ/значення форматуються лише при увімкненому рівні.
+     */
+    public static void event(Logger logger, Level level, String event, Object... keyValues) {
+        if (!logger.isLoggable(level)) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder(event);
+        for (int i = 0; i + 1 < keyValues.length; i += 2) {
+            sb.append(' ').append(keyValues[i]).append('=').append(keyValues[i + 1]);
+        }
+        logger.log(level, sb.toString());
+    }
+
+    /**
+     * Переводить логери застосунку ({@value #APP_LOGGER}.*) на асинхронний обробник.
+     * Обробники кореневого логера стають делегатами, сам кореневий логер не змінюється.
+     */
+    public static AsyncLogHandler installAsync(int bufferSize) {
+        Handler[] delegates = Logger.getLogger("").getHandlers();
+        AsyncLogHandler handler = new AsyncLogHandler(bufferSize, delegates);
+        APP.addHandler(handler);
+        APP.setUseParentHandlers(false);
+        return handler;
+    }
+
+    public static void uninstallAsync(AsyncLogHandler handler) {
+        APP.removeHandler(handler);
+        APP.setUseParentHandlers(true);
+        handler.close();
+    }
+}
@@ -0,0 +1,127 @@
+package itstep.learning.services.maintenance;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import itstep.learning.dal.dao.AccessTokenDao;
+import itstep.learning.services.config.ConfigService;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Периодическая очистка истёкших строк {@code access_tokens}.
+ * <p>
+ * Удаление идёт небольшими порциями (каждая — отдельная короткая транзакция) с паузой между ними,
+ * чтобы не держать блокировки таблицы. Граница {@code expires_at} фиксируется в начале прогона,
+ * поэтому прогон конечен даже при постоянной выдаче новых токенов.
+ */
+@Singleton
+public class TokenSweeperService {
+    private static final Logger logger = Logger.getLogger(TokenSweeperService.class.getName());
+
+    private final AccessTokenDao accessTokenDao;
+    private final boolean enabled;
+    private final long intervalSeconds;
+    private final int chunkSize;
+    private final int maxChunksPerRun;
+    private final long pauseMs;
+
+    private final AtomicLong totalPurged = new AtomicLong();
+    private volatile int lastRunPurged;
+    private volatile long lastRunMs;
+    private ScheduledExecutorService scheduler;
+
+    @Inject
+    public TokenSweeperService(AccessTokenDao accessTokenDao, ConfigService configService) {
+        this.accessTokenDao = accessTokenDao;
+        this.enabled = configService.getBoolean("tokens.sweeper.enabled", true);
+        this.intervalSeconds = Math.max(1, configService.getLong("tokens.sweeper.intervalSeconds", 600));
+        this.chunkSize = Math.max(1, configService.getInt("tokens.sweeper.chunkSize", 1000));
+        this.maxChunksPerRun = Math.max(1, configService.getInt("tokens.sweeper.maxChunksPerRun", 100));
+        this.pauseMs = Math.max(0, configService.getLong("tokens.sweeper.pauseMs", 50));
+    }
+
+    public synchronized void start() {
+        if (!enabled) {
+            logger.info("ℹ️ Очистка токенов отключена (tokens.sweeper.enabled=false)");
+            return;
+        }
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "access-token-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.execute(accessTokenDao::ensureIndexes);
+        scheduler.scheduleWithFixedDelay(this::sweep, 0, intervalSeconds, TimeUnit.SECONDS);
+        logger.info("✅ Очистка токенов запущена: каждые " + intervalSeconds + " с, порция " + chunkSize);
+    }
+
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+        logger.info("🛑 Очистка токенов остановлена, всего удалено строк: " + totalPurged.get());
+    }
+
+    /**
+     * Один прогон: порции до исчерпания истёкших строк или до {@code maxChunksPerRun}.
+     */
+    void sweep() {
+        long startedAt = System.nanoTime();
+        LocalDateTime cutoff = LocalDateTime.now();
+        int purged = 0;
+        int chunks = 0;
+        try {
+            while (chunks < maxChunksPerRun && !Thread.currentThread().isInterrupted()) {
+                int rows = accessTokenDao.purgeExpiredChunk(cutoff, chunkSize);
+                if (rows < 0) {
+                    break;
+                }
+                purged += rows;
+                chunks++;
+                if (rows < chunkSize) {
+                    break;
+                }
+                if (pauseMs > 0) {
+                    Thread.sleep(pauseMs);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "⚠️ Ошибка очистки токенов: " + e.getMessage(), e);
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        lastRunPurged = purged;
+        lastRunMs = elapsedMs;
+        totalPurged.addAndGet(purged);
+        logger.info("🧹 Очистка токенов: удалено " + purged + " строк (" + chunks + " порций) за " + elapsedMs + " мс");
+    }
+
+    public int getLastRunPurged() {
+        return lastRunPurged;
+    }
+
+    public long getLastRunMs() {
+        return lastRunMs;
+    }
+
+    public long getTotalPurged() {
+        return totalPurged.get();
+    }
+}
@@ -0,0 +1,96 @@
+package itstep.learning.services.ratelimit;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import itstep.learning.services.config.ConfigService;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Обмеження частоти спроб входу для одного логіна (token bucket).
+ * <p>
+ * Кожна спроба коштує BCrypt-перевірки, тому перебір паролів для одного логіна не повинен
+ * займати весь пул хешування. Ліміт перевіряється до звернення до БД та пулу.
+ */
+@Singleton
+public class LoginRateLimiter {
+    private static final Logger logger = Logger.getLogger(LoginRateLimiter.class.getName());
+    private static final int CLEANUP_EVERY = 1024;
+
+    private final int capacity;
+    private final long refillNanosPerToken;
+    private final long idleNanos;
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong calls = new AtomicLong();
+
+    @Inject
+    public LoginRateLimiter(ConfigService configService) {
+        this.capacity = Math.max(1, configService.getInt("auth.login.maxAttempts", 5));
+        long windowSeconds = Math.max(1, configService.getLong("auth.login.windowSeconds", 60));
+        this.refillNanosPerToken = TimeUnit.SECONDS.toNanos(windowSeconds) / capacity;
+        this.idleNanos = TimeUnit.SECONDS.toNanos(windowSeconds);
+    }
+
+    /**
+     * Забирає одну спробу для логіна.
+     *
+     * @return 0, якщо спробу дозволено, інакше кількість секунд до наступної дозволеної спроби
+     */
+    public long tryAcquire(String login) {
+        long now = System.nanoTime();
+        if (calls.incrementAndGet() % CLEANUP_EVERY == 0) {
+            cleanup(now);
+        }
+        Bucket bucket = buckets.computeIfAbsent(key(login), k -> new Bucket(capacity, now));
+        long waitNanos = bucket.tryTake(now, capacity, refillNanosPerToken);
+        if (waitNanos > 0) {
+            logger.warning("⛔ Перевищено ліміт спроб входу для логіна: " + login);
+            return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+        }
+        return 0;
+    }
+
+    /**
+     * Після успішного входу лічильник логіна скидається.
+     */
+    public void reset(String login) {
+        buckets.remove(key(login));
+    }
+
+    private void cleanup(long now) {
+        // Відро, що простояло довше вікна, вже повне — зберігати його немає сенсу
+        buckets.entrySet().removeIf(e -> now - e.getValue().lastAccessNanos() > idleNanos);
+    }
+
+    private static String key(String login) {
+        return login == null ? "" : login.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long lastRefillNanos;
+
+        Bucket(int capacity, long now) {
+            this.tokens = capacity;
+            this.lastRefillNanos = now;
+        }
+
+        synchronized long tryTake(long now, int capacity, long refillNanosPerToken) {
+            tokens = Math.min(capacity, tokens + (double) (now - lastRefillNanos) / refillNanosPerToken);
+            lastRefillNanos = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) ((1 - tokens) * refillNanosPerToken);
+        }
+
+        synchronized long lastAccessNanos() {
+            return lastRefillNanos;
+        }
+    }
+}
@@ -1,9 +1,10 @@
 package itstep.learning.servlets;
 
-import com.google.gson.Gson;
 import itstep.learning.dal.dao.CartDao;
 import itstep.learning.dal.dto.Cart;
 import itstep.learning.dal.dto.CartItem;
+import itstep.learning.models.AuthPrincipal;
+import itstep.learning.rest.JsonResponseWriter;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import jakarta.servlet.ServletConfig;
@@ -14,7 +15,6 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.logging.Logger;
@@ -29,9 +29,7 @@ public class CartServlet extends HttpServlet {
     private CartDao cartDao;
 
     @Inject
-    private JwtUtil jwtUtil;
-
-    private final Gson gson = new Gson();
+    private JsonResponseWriter jsonWriter;
 
     @Override
     public void init(ServletConfig config) throws ServletException {
@@ -44,12 +42,6 @@ public class CartServlet extends HttpServlet {
             LOGGER.info("✅ [CartServlet] cartDao успешно проинициализирован");
         }
 
-        if (jwtUtil == null) {
-            LOGGER.severe("❌ [CartServlet] jwtUtil не проинициализирован!");
-        } else {
-            LOGGER.info("✅ [CartServlet] jwtUtil успешно проинициализирован");
-        }
-
         LOGGER.info("✅ [CartServlet] Инициализация сервлета CartServlet завершена");
     }
 
@@ -59,10 +51,7 @@ public class CartServlet extends HttpServlet {
         setupCors(resp);
         LOGGER.info("➡️ [GET] Запрос на получение корзины");
 
-        String authHeader = req.getHeader("Authorization");
-        LOGGER.info("🔐 [GET] Authorization header: " + authHeader);
-
-        if (!isTokenValid(authHeader)) {
+        if (!isAuthenticated(req)) {
             LOGGER.warning("⛔ [GET] Токен отсутствует или невалиден");
             sendJson(resp, 401, Map.of("error", "Access token is missing or invalid"));
             return;
@@ -106,10 +95,7 @@ public class CartServlet extends HttpServlet {
         setupCors(resp);
         LOGGER.info("➡️ [POST] Запрос на создание корзины");
 
-        String authHeader = req.getHeader("Authorization");
-        LOGGER.info("🔐 [POST] Authorization header: " + authHeader);
-
-        if (!isTokenValid(authHeader)) {
+        if (!isAuthenticated(req)) {
             LOGGER.warning("⛔ [POST] Access token is missing or invalid");
             sendJson(resp, 401, Map.of("error", "Access token is missing or invalid"));
             return;
@@ -118,7 +104,7 @@ public class CartServlet extends HttpServlet {
         String body = new String(req.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
         LOGGER.info("📥 [POST] Получено тело запроса: " + body);
 
-        Cart cart = gson.fromJson(body, Cart.class);
+        Cart cart = jsonWriter.getGson().fromJson(body, Cart.class);
 
         String cartId = UUID.randomUUID().toString();
         cart.setCartId(cartId);
@@ -142,10 +128,7 @@ public class CartServlet extends HttpServlet {
         setupCors(resp);
         LOGGER.info("➡️ [PUT] Запрос на обновление корзины");
 
-        String authHeader = req.getHeader("Authorization");
-        LOGGER.info("🔐 [PUT] Authorization header: " + authHeader);
-
-        if (!isTokenValid(authHeader)) {
+        if (!isAuthenticated(req)) {
             LOGGER.warning("⛔ [PUT] Access token is missing or invalid");
             sendJson(resp, 401, Map.of("error", "Access token is missing or invalid"));
             return;
@@ -166,7 +149,7 @@ public class CartServlet extends HttpServlet {
         String body = new String(req.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
         LOGGER.info("📥 [PUT] Получено тело запроса: " + body);
 
-        Cart cart = gson.fromJson(body, Cart.class);
+        Cart cart = jsonWriter.getGson().fromJson(body, Cart.class);
         cart.setCartId(cartId);
 
         boolean updated = cartDao.updateCart(cart);
@@ -187,10 +170,7 @@ public class CartServlet extends HttpServlet {
         setupCors(resp);
         LOGGER.info("➡️ [DELETE] Запрос на удаление корзины");
 
-        String authHeader = req.getHeader("Authorization");
-        LOGGER.info("🔐 [DELETE] Authorization header: " + authHeader);
-
-        if (!isTokenValid(authHeader)) {
+        if (!isAuthenticated(req)) {
             LOGGER.warning("⛔ [DELETE] Access token is missing or invalid");
             sendJson(resp, 401, Map.of("error", "Access token is missing or invalid"));
             return;
@@ -220,23 +200,13 @@ public class CartServlet extends HttpServlet {
         sendJson(resp, 200, Map.of("message", "Cart deleted", "cartId", cartId));
     }
 
-    // ✅ Проверка токена (JWT)
-    private boolean isTokenValid(String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            LOGGER.warning("⚠️ Нет заголовка Authorization или он некорректный");
+    // ✅ Проверка аутентификации: токен уже проверен AuthJwtFilter
+    private boolean isAuthenticated(HttpServletRequest req) {
+        if (AuthPrincipal.from(req) == null) {
+            LOGGER.warning("⚠️ Запрос без валидного токена: " + req.getAttribute("authStatus"));
             return false;
         }
-
-        String token = authHeader.substring(7);
-        boolean isValid = JwtUtil.validateToken(token);
-
-        if (!isValid) {
-            LOGGER.warning("⚠️ Токен не прошел валидацию: " + token);
-        } else {
-            LOGGER.info("✅ Токен валиден");
-        }
-
-        return isValid;
+        return true;
     }
 
     // ✅ Настройка CORS и заголовков
@@ -259,16 +229,7 @@ public class CartServlet extends HttpServlet {
 
     // ✅ Отправка JSON-ответа
     private void sendJson(HttpServletResponse resp, int status, Object body) throws IOException {
-        String json = gson.toJson(body);
-
-        resp.setStatus(status);
-        resp.setContentType("application/json");
-        resp.setCharacterEncoding("UTF-8");
-
-        try (PrintWriter writer = resp.getWriter()) {
-            writer.write(json);
-        }
-
-        LOGGER.info("📤 Ответ HTTP " + status + ": " + json);
+        jsonWriter.write(resp, status, body);
+        LOGGER.fine(() -> "📤 Ответ HTTP " + status);
     }
 }
\ No newline at end of file
@@ -8,6 +8,8 @@ import itstep.learning.dal.dao.*;
 import itstep.learning.dal.dto.Category;
 import itstep.learning.dal.dto.Product;
 import itstep.learning.services.DbService.DbService;
+import itstep.learning.services.JwtService;
+import itstep.learning.services.cache.ResponseCache;
 import itstep.learning.services.config.ConfigService;
 import itstep.learning.services.hash.HashService;
 import itstep.learning.services.hash.Md5HashService;
@@ -52,6 +54,8 @@ public class HomeServlet extends HttpServlet {
     private final ProductDao productDao;
     private final CartDao cartDao;
     private final OrdersDao ordersDao;
+    private final JwtService jwtService;
+    private final ResponseCache responseCache;
     @Inject
     public HomeServlet(RandomService randomService,
                        DateTimeService dateTimeService,
@@ -60,7 +64,9 @@ public class HomeServlet extends HttpServlet {
                        ConfigService configService,
                        CategoryDao categoryDao,
                        ProductDao productDao,
-                       CartDao cartDao, OrdersDao ordersDao) {
+                       CartDao cartDao, OrdersDao ordersDao,
+                       JwtService jwtService,
+                       ResponseCache responseCache) {
         this.randomService = randomService;
         this.dateTimeService = dateTimeService;
         this.kdfService = kdfService;
@@ -70,6 +76,8 @@ public class HomeServlet extends HttpServlet {
         this.productDao = productDao;
         this.cartDao = cartDao;
         this.ordersDao = ordersDao;
+        this.jwtService = jwtService;
+        this.responseCache = responseCache;
     }
 
     @Override
@@ -149,6 +157,9 @@ public class HomeServlet extends HttpServlet {
             response.put("ordersMessage", ordersTablesCreated ? "✅ Таблицы 'orders' и 'order_items' созданы" : "❌ Ошибка создания таблиц заказов");
             response.put("categoriesCount", categoriesCount);
             response.put("productsCount", productsCount);
+            response.put("productCache", productDao.getCacheStats());
+            response.put("jwtCache", jwtService.getCacheStats());
+            response.put("responseCache", responseCache.stats());
 
             response.put("currentTime", currentTime != null ? currentTime : "N/A");
             response.put("databases", databases != null ? databases : "N/A");
@@ -1,22 +1,26 @@
 package itstep.learning.servlets;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import itstep.learning.dal.dao.AccessTokenDao;
+import itstep.learning.dal.dao.UserDao;
 import itstep.learning.models.User;
+import itstep.learning.rest.AsyncCompletion;
+import itstep.learning.rest.JsonResponseWriter;
 import itstep.learning.services.DbService.DbService;
 import itstep.learning.services.DbService.MySqlDbService;
 import itstep.learning.services.JwtService;
+import itstep.learning.services.hash.PasswordHashExecutor;
+import itstep.learning.services.kdf.KdfPolicyService;
+import itstep.learning.services.ratelimit.LoginRateLimiter;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.mindrot.jbcrypt.BCrypt;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -27,6 +31,9 @@ import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.security.Key;
@@ -34,20 +41,30 @@ import java.security.Key;
 
 
 @Singleton
-@WebServlet("/login")
+@WebServlet(value = "/login", asyncSupported = true)
 public class LoginServlet extends HttpServlet {
 
     private static final Logger LOGGER = Logger.getLogger(LoginServlet.class.getName());
-    private static final String CONNECTION_STRING =
-            "jdbc:mysql://127.0.0.1:3306/Java221?useSSL=false&serverTimezone=UTC&allowPublicKeyRetrieval=true";
-    private static final String DB_USER = "user221";
-    private static final String DB_PASSWORD = "pass221";
 
-    private final Gson gson = new Gson();
+    @Inject
+    private JsonResponseWriter jsonResponseWriter;
 
     @Inject
     private JwtService jwtService;
 
+    // Соединение берётся из пула; вход — один запрос к БД
+    @Inject
+    private UserDao userDao;
+
+    @Inject
+    private PasswordHashExecutor passwordHashExecutor;
+
+    @Inject
+    private LoginRateLimiter loginRateLimiter;
+
+    @Inject
+    private KdfPolicyService kdfPolicyService;
+
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         LOGGER.info("🔐 Получен POST-запрос на аутентификацию");
@@ -71,126 +88,121 @@ public class LoginServlet extends HttpServlet {
         String login = parts[0];
         String password = parts[1];
 
-        try (Connection connection = DriverManager.getConnection(CONNECTION_STRING, DB_USER, DB_PASSWORD)) {
-            LOGGER.info("✅ Установлено подключение к БД для авторизации");
-
-            // Получаем пользователя по логину
-            User userShort = getUserByLogin(connection, login);
-            if (userShort == null) {
-                sendJsonResponse(resp, 401, Map.of("error", "⛔ Неверный логин или пользователь не найден"));
-                return;
-            }
-
-            // Проверка пароля
-            if (!BCrypt.checkpw(password, userShort.getPassword())) {
-                sendJsonResponse(resp, 401, Map.of("error", "⛔ Неверный пароль"));
-                return;
-            }
-
-            // Подгружаем полные данные пользователя (включая role)
-            User fullUser = getUserById(connection, userShort.getId());
-            if (fullUser == null) {
-                sendJsonResponse(resp, 500, Map.of("error", "⛔ Не удалось получить полные данные пользователя"));
-                return;
-            }
-
-            // ✅ ПРОВЕРКА РОЛИ
-            if (fullUser.getRole() == null || fullUser.getRole().isBlank()) {
-                LOGGER.warning("⛔ Пользователь без роли: " + login);
-                sendJsonResponse(resp, 403, Map.of("error", "Роль не установлена. Обратитесь к администратору."));
-                return;
-            }
-
-            LOGGER.info("✅ Успешная авторизация пользователя: " + login + " с ролью: " + fullUser.getRole());
-
-            // Формирование payload для JWT
-            JsonObject payload = new JsonObject();
-            payload.addProperty("user_id", fullUser.getId());
-            payload.addProperty("login", fullUser.getLogin());
-            payload.addProperty("role", fullUser.getRole());
-
-            String jwtToken = jwtService.createJwt(payload);
-
-            Map<String, Object> responseData = Map.of(
-                    "message", "Успешный вход",
-                    "token", jwtToken,
-                    "user", fullUser
-            );
-
-            sendJsonResponse(resp, 200, responseData);
-
-        } catch (SQLException ex) {
+        // Лимит попыток проверяется до БД и BCrypt, чтобы перебор не занимал CPU
+        long retryAfter = loginRateLimiter.tryAcquire(login);
+        if (retryAfter > 0) {
+            resp.setHeader("Retry-After", String.valueOf(retryAfter));
+            sendJsonResponse(resp, 429, Map.of("error", "⛔ Слишком много попыток входа. Повторите позже"));
+            return;
+        }
+
+        // Пользователь вместе с ролью, emails и телефонами — одним запросом
+        User user;
+        try {
+            user = userDao.getUserForLogin(login);
+        } catch (SQLException | RuntimeException ex) {
             LOGGER.log(Level.SEVERE, "❌ Ошибка базы данных при авторизации", ex);
             sendJsonResponse(resp, 500, Map.of("error", "Ошибка базы данных"));
+            return;
+        }
+        if (user == null) {
+            sendJsonResponse(resp, 401, Map.of("error", "⛔ Неверный логин или пользователь не найден"));
+            return;
         }
-    }
 
-    private User getUserByLogin(Connection connection, String login) throws SQLException {
-        String sql = "SELECT * FROM users WHERE login = ?";
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setString(1, login);
-            try (ResultSet rs = statement.executeQuery()) {
-                if (rs.next()) {
-                    return User.fromResultSet(rs); // ✅ Убедись, что сюда попадает password
-                }
-            }
+        // Проверка пароля — на пуле хеширования, поток контейнера освобождается
+        CompletableFuture<Boolean> passwordCheck;
+        try {
+            passwordCheck = passwordHashExecutor.checkpw(password, user.getPassword());
+        } catch (RejectedExecutionException e) {
+            sendOverloaded(resp);
+            return;
         }
-        return null;
-    }
 
-    private User getUserById(Connection connection, Long userId) throws SQLException {
-        String sql = "SELECT u.*, ua.role_id FROM users u " +
-                "LEFT JOIN users_access ua ON u.id = ua.user_id " +
-                "WHERE u.id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setLong(1, userId);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    User user = User.fromResultSet(rs); // ✅ Здесь также учитывай role
-                    user.setRole(rs.getString("role_id"));
-
-                    // Загружаем emails и телефоны
-                    user.setEmails(getUserEmails(connection, userId));
-                    user.setPhones(getUserPhones(connection, userId));
-
-                    LOGGER.info("🔍 Загружены данные пользователя ID=" + userId +
-                            ": Role=" + user.getRole() +
-                            ", Emails=" + user.getEmails() +
-                            ", Phones=" + user.getPhones());
-
-                    return user;
-                }
-            }
+        if (!req.isAsyncSupported()) {
+            completeLogin(resp, login, password, user, passwordCheck);
+            return;
         }
-        return null;
+        // Тайм-аут не короче очереди пула: иначе контейнер завершит запрос раньше проверки пароля
+        AsyncCompletion completion = AsyncCompletion.start(req, passwordHashExecutor.getAsyncTimeoutMs(),
+                this::sendOverloaded);
+        passwordCheck.whenComplete((ok, error) ->
+                completion.finish(r -> completeLogin(r, login, password, user, passwordCheck)));
     }
 
-    private List<String> getUserEmails(Connection connection, Long userId) throws SQLException {
-        List<String> emails = new ArrayList<>();
-        String sql = "SELECT email FROM user_emails WHERE user_id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setLong(1, userId);
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    emails.add(rs.getString("email"));
-                }
-            }
+    private void sendOverloaded(HttpServletResponse resp) throws IOException {
+        resp.setHeader("Retry-After", String.valueOf(passwordHashExecutor.getRetryAfterSeconds()));
+        sendJsonResponse(resp, 503, Map.of("error", "Сервер перегружен. Повторите попытку позже"));
+    }
+
+    private void completeLogin(HttpServletResponse resp, String login, String password, User user,
+                               CompletableFuture<Boolean> passwordCheck) throws IOException {
+        boolean passwordValid;
+        try {
+            passwordValid = passwordCheck.join();
+        } catch (CompletionException e) {
+            LOGGER.log(Level.SEVERE, "❌ Ошибка проверки пароля", e.getCause());
+            sendJsonResponse(resp, 500, Map.of("error", "Ошибка проверки пароля"));
+            return;
+        }
+        if (!passwordValid) {
+            sendJsonResponse(resp, 401, Map.of("error", "⛔ Неверный пароль"));
+            return;
+        }
+        loginRateLimiter.reset(login);
+        rehashIfNeeded(user, password);
+
+        // ✅ ПРОВЕРКА РОЛИ
+        if (user.getRole() == null || user.getRole().isBlank()) {
+            LOGGER.warning("⛔ Пользователь без роли: " + login);
+            sendJsonResponse(resp, 403, Map.of("error", "Роль не установлена. Обратитесь к администратору."));
+            return;
         }
-        return emails;
+
+        LOGGER.info("✅ Успешная авторизация пользователя: " + login + " с ролью: " + user.getRole());
+
+        // Формирование payload для JWT
+        JsonObject payload = new JsonObject();
+        payload.addProperty("user_id", user.getId());
+        payload.addProperty("login", user.getLogin());
+        payload.addProperty("role", user.getRole());
+
+        String jwtToken = jwtService.createJwt(payload);
+
+        Map<String, Object> responseData = Map.of(
+                "message", "Успешный вход",
+                "token", jwtToken,
+                "user", user
+        );
+
+        sendJsonResponse(resp, 200, responseData);
     }
 
-    private List<String> getUserPhones(Connection connection, Long userId) throws SQLException {
-        List<String> phones = new ArrayList<>();
-        String sql = "SELECT phone FROM user_phones WHERE user_id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setLong(1, userId);
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    phones.add(rs.getString("phone"));
+    /**
+     * Пароль верный, но хеш сделан с меньшей стоимостью, чем требует политика, — перехешируем в фоне.
+     * Ответ не ждёт; если пул занят, попробуем при следующем входе.
+     */
+    private void rehashIfNeeded(User user, String password) {
+        String oldHash = user.getPassword();
+        if (!kdfPolicyService.needsRehash(oldHash)) {
+            return;
+        }
+        int cost = kdfPolicyService.getBcryptCost();
+        try {
+            // Запись в БД — на отдельном потоке: ожидание соединения не должно занимать поток BCrypt
+            passwordHashExecutor.hashpw(password, cost).thenAcceptAsync(newHash -> {
+                try {
+                    if (userDao.updatePasswordHash(user.getId(), oldHash, newHash)) {
+                        LOGGER.info("🔁 Пароль перехеширован: user_id=" + user.getId()
+                                + ", cost " + KdfPolicyService.bcryptCostOf(oldHash) + " → " + cost);
+                    }
+                } catch (SQLException | RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "⚠️ Не удалось сохранить новый хеш пароля", e);
                 }
-            }
+            }, passwordHashExecutor.getStoreExecutor());
+        } catch (RejectedExecutionException e) {
+            LOGGER.fine("Пул хеширования занят, перехеширование отложено");
         }
-        return phones;
     }
 
     private void setupResponseHeaders(HttpServletResponse resp) {
@@ -200,11 +212,10 @@ public class LoginServlet extends HttpServlet {
         resp.setHeader("Access-Control-Allow-Credentials", "true");
     }
 
+    // В лог — только статус: тело ответа содержит токен и данные пользователя
     private void sendJsonResponse(HttpServletResponse resp, int statusCode, Object data) throws IOException {
-        resp.setStatus(statusCode);
-        resp.setContentType("application/json;charset=UTF-8");
-        resp.getWriter().write(gson.toJson(data));
-        LOGGER.info("📤 Ответ отправлен [" + statusCode + "]: " + gson.toJson(data));
+        jsonResponseWriter.write(resp, statusCode, data);
+        LOGGER.info("📤 Ответ отправлен [" + statusCode + "]");
     }
 
     @Override
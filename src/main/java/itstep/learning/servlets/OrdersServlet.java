@@ -2,13 +2,14 @@ package itstep.learning.servlets;
 
 import com.google.gson.*;
 import com.mysql.cj.x.protobuf.MysqlxCrud;
-import io.jsonwebtoken.Claims;
 import itstep.learning.dal.dao.OrdersDao;
+import itstep.learning.dal.dto.OrderCursor;
+import itstep.learning.dal.dto.OrderPage;
+import itstep.learning.models.AuthPrincipal;
 import itstep.learning.models.Order;
+import itstep.learning.rest.JsonResponseWriter;
 import itstep.learning.services.DbService.DbService;
 import itstep.learning.services.DbService.MySqlDbService;
-import itstep.learning.services.JwtService;
-import itstep.learning.services.LocalDateTimeAdapter;
 import itstep.learning.services.config.ConfigService;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
@@ -21,10 +22,8 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -41,14 +40,14 @@ public class OrdersServlet extends HttpServlet {
     @Inject
     private OrdersDao ordersDao;
 
-    @Inject
-    private JwtUtil jwtUtil;
-
+    private final JsonResponseWriter jsonWriter;
     private final Gson gson;
 
     @Inject
-    public OrdersServlet(Gson gson) {
-        this.gson = gson;
+    public OrdersServlet(JsonResponseWriter jsonWriter) {
+        // Общий Gson уже знает LocalDateTime — и для запросов, и для ответов GET
+        this.jsonWriter = jsonWriter;
+        this.gson = jsonWriter.getGson();
     }
 
     @Override
@@ -62,12 +61,6 @@ public class OrdersServlet extends HttpServlet {
             LOGGER.info("✅ [OrdersServlet] ordersDao успешно проинициализирован");
         }
 
-        if (jwtUtil == null) {
-            LOGGER.severe("❌ [OrdersServlet] jwtUtil не проинициализирован!");
-        } else {
-            LOGGER.info("✅ [OrdersServlet] jwtUtil успешно проинициализирован");
-        }
-
         LOGGER.info("✅ [OrdersServlet] Инициализация сервлета OrdersServlet завершена");
     }
 
@@ -76,46 +69,8 @@ public class OrdersServlet extends HttpServlet {
         setupCors(resp);
         LOGGER.info("➡️ [POST] Запрос на создание заказа");
 
-        String authHeader = req.getHeader("Authorization");
-        LOGGER.info("🔐 [POST] Authorization header: " + authHeader);
-
-        if (!isTokenValid(authHeader)) {
-            LOGGER.warning("⛔ [POST] Access token is missing or invalid");
-            sendJson(resp, 401, Map.of("error", "Access token is missing or invalid"));
-            return;
-        }
-
-        String token = extractBearerToken(authHeader);
-        Claims claims = jwtUtil.getPayload(token);
-
-        if (claims == null) {
-            LOGGER.warning("⛔️ Невалидный или истёкший токен: " + token);
-            sendJson(resp, 403, Map.of("error", "Invalid or expired token"));
-            return;
-        }
-
-        // Парсим subject в JSON
-        String subjectJson = claims.getSubject();
-        LOGGER.info("📜 Subject JSON: " + subjectJson);
-
-        JsonObject subject;
-        try {
-            subject = JsonParser.parseString(subjectJson).getAsJsonObject();
-        } catch (Exception e) {
-            LOGGER.warning("❌ Ошибка парсинга subject JSON: " + e.getMessage());
-            sendJson(resp, 400, Map.of("error", "Invalid token payload"));
-            return;
-        }
-
-        // Получаем user_id как UUID
-        String userIdStr = subject.get("user_id").getAsString();
-        UUID userId;
-        try {
-            userId = UUID.nameUUIDFromBytes(userIdStr.getBytes());  // UUID из числового user_id
-            LOGGER.info("✅ userId из subject сгенерирован: " + userId);
-        } catch (Exception e) {
-            LOGGER.warning("❌ Невалидный user_id UUID: " + e.getMessage());
-            sendJson(resp, 400, Map.of("error", "Invalid user ID format"));
+        UUID userId = resolveUserId(req, resp);
+        if (userId == null) {
             return;
         }
 
@@ -124,10 +79,6 @@ public class OrdersServlet extends HttpServlet {
         LOGGER.info("📥 Получено тело запроса: " + body);
 
         try {
-            Gson gson = new GsonBuilder()
-                    .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())  // твой адаптер
-                    .create();
-
             Order order = gson.fromJson(body, Order.class);
 
             if (order == null || order.getItems() == null || order.getItems().isEmpty()) {
@@ -158,33 +109,54 @@ public class OrdersServlet extends HttpServlet {
         }
     }
 
-    private boolean isTokenValid(String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            LOGGER.warning("⚠️ Нет заголовка Authorization или он некорректный");
-            return false;
+    /**
+     * userId заказов для аутентифицированного пользователя (principal кладёт AuthJwtFilter).
+     * Если principal нет — отправляет 401 и возвращает {@code null}.
+     */
+    private UUID resolveUserId(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        AuthPrincipal principal = AuthPrincipal.from(req);
+        if (principal == null) {
+            LOGGER.warning("⛔ Access token is missing or invalid: " + req.getAttribute("authStatus"));
+            sendJson(resp, 401, Map.of("error", "Access token is missing or invalid"));
+            return null;
         }
+        // UUID из числового user_id
+        return UUID.nameUUIDFromBytes(String.valueOf(principal.getUserId()).getBytes());
+    }
 
-        String token = extractBearerToken(authHeader);
-        boolean isValid = jwtUtil.validateToken(token);
+    // ✅ GET /orders?limit=20&after=<token> — страница заказов текущего пользователя
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        setupCors(resp);
+        LOGGER.info("➡️ [GET] Запрос списка заказов");
 
-        if (!isValid) {
-            LOGGER.warning("⚠️ Токен не прошел валидацию: " + token);
-        } else {
-            LOGGER.info("✅ Токен валиден");
+        UUID userId = resolveUserId(req, resp);
+        if (userId == null) {
+            return;
         }
 
-        return isValid;
-    }
+        int limit;
+        OrderCursor cursor = null;
+        try {
+            String limitParam = req.getParameter("limit");
+            limit = limitParam == null || limitParam.isEmpty() ? 20 : Integer.parseInt(limitParam);
+            String after = req.getParameter("after");
+            if (after != null && !after.isEmpty()) {
+                cursor = OrderCursor.decode(after);
+            }
+        } catch (IllegalArgumentException e) {
+            sendJson(resp, 400, Map.of("error", "Invalid limit or cursor"));
+            return;
+        }
+        limit = Math.max(1, Math.min(limit, 100));
 
-    private String extractBearerToken(String authHeader) {
-        LOGGER.info("🔍 Authorization Header: " + authHeader);
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            String token = authHeader.substring(7);
-            LOGGER.info("✅ Токен получен: " + token);
-            return token;
+        OrderPage page = ordersDao.getOrdersByUserId(userId, cursor, limit);
+        if (page == null) {
+            // Ошибка БД — не отдаём её как пустую последнюю страницу
+            sendJson(resp, 500, Map.of("error", "Server error"));
+            return;
         }
-        LOGGER.warning("⚠️ Токен отсутствует в заголовках!");
-        return null;
+        sendJson(resp, 200, page);
     }
 
     private void setupCors(HttpServletResponse resp) {
@@ -204,16 +176,7 @@ public class OrdersServlet extends HttpServlet {
     }
 
     private void sendJson(HttpServletResponse resp, int statusCode, Object body) throws IOException {
-        String json = gson.toJson(body);
-
-        resp.setStatus(statusCode);
-        resp.setContentType("application/json");
-        resp.setCharacterEncoding("UTF-8");
-
-        try (PrintWriter writer = resp.getWriter()) {
-            writer.write(json);
-        }
-
-        LOGGER.info("📤 Ответ HTTP " + statusCode + ": " + json);
+        jsonWriter.write(resp, statusCode, body);
+        LOGGER.fine(() -> "📤 Ответ HTTP " + statusCode);
     }
 }
\ No newline at end of file
@@ -1,14 +1,22 @@
 package itstep.learning.servlets;
-import com.google.gson.Gson;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import itstep.learning.dal.dao.CategoryDao;
 import itstep.learning.dal.dao.ProductDao;
 import itstep.learning.dal.dto.Category;
 import itstep.learning.dal.dto.Product;
+import itstep.learning.dal.dto.ProductCursor;
+import itstep.learning.dal.dto.ProductPage;
+import itstep.learning.rest.JsonResponseWriter;
+import itstep.learning.rest.RestService;
+import itstep.learning.models.AuthPrincipal;
 import itstep.learning.services.DbService.DbService;
+import itstep.learning.services.cache.CatalogVersion;
+import itstep.learning.services.cache.ResponseCache;
+import itstep.learning.services.config.ConfigService;
 import itstep.learning.services.form_parse.FormParseResult;
 import itstep.learning.services.form_parse.FormParseService;
+import itstep.learning.services.logging.Log;
 import itstep.learning.services.storage.StorageService;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.MultipartConfig;
@@ -22,7 +30,6 @@ import java.util.List;
 
 import org.apache.commons.fileupload2.core.FileItem;
 import org.apache.commons.fileupload2.core.FileItem;
-import com.google.gson.Gson;
 
 
 import java.util.*;
@@ -30,7 +37,9 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import java.io.*;
+import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.Semaphore;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -39,21 +48,39 @@ import java.util.logging.Logger;
 @MultipartConfig
 public class ProductServlet extends HttpServlet {
     private static final Logger LOGGER = Logger.getLogger(ProductServlet.class.getName());
+    private static final String GZIP_ETAG_VARIANT = "gz";
+    private static final Set<String> CACHEABLE_KINDS = Set.of("categories", "category", "product", "paged", "search");
+    private static final String[] CACHE_KEY_PARAMS = {"slug", "id", "categoryId", "limit", "offset", "after", "search"};
 
     private final FormParseService formParseService;
     private final StorageService storageService;
     private final ProductDao productDao;
     private final CategoryDao categoryDao;
+    private final JsonResponseWriter jsonWriter;
+    private final CatalogVersion catalogVersion;
+    private final ResponseCache responseCache;
+    private final long catalogMaxAgeSeconds;
+    // Експорт тримає з'єднання пулу весь час завантаження — одночасно їх лише кілька
+    private final Semaphore exportPermits;
 
     @Inject
     public ProductServlet(FormParseService formParseService,
                           StorageService storageService,
                           CategoryDao categoryDao,
-                          ProductDao productDao) {
+                          ProductDao productDao,
+                          JsonResponseWriter jsonWriter,
+                          CatalogVersion catalogVersion,
+                          ResponseCache responseCache,
+                          ConfigService configService) {
         this.formParseService = formParseService;
         this.storageService = storageService;
         this.categoryDao = categoryDao;
         this.productDao = productDao;
+        this.jsonWriter = jsonWriter;
+        this.catalogVersion = catalogVersion;
+        this.responseCache = responseCache;
+        this.catalogMaxAgeSeconds = Math.max(0, configService.getLong("catalog.http.maxAgeSeconds", 0));
+        this.exportPermits = new Semaphore(Math.max(1, configService.getInt("products.export.maxConcurrent", 2)));
         LOGGER.info("🚀 ProductServlet initialized with all dependencies.");
     }
 
@@ -81,54 +108,80 @@ public class ProductServlet extends HttpServlet {
         String queryString = req.getQueryString();
         String type = req.getParameter("type");
 
-        LOGGER.info("📥 [doGet] Початок обробки GET-запиту:");
-        LOGGER.info("➡️ ServletPath: " + servletPath);
-        LOGGER.info("➡️ QueryString: " + queryString);
-        LOGGER.info("➡️ Type параметр: " + type);
+        LOGGER.fine("📥 [doGet] Початок обробки GET-запиту:");
+        LOGGER.fine(() -> "➡️ ServletPath: " + servletPath);
+        LOGGER.fine(() -> "➡️ QueryString: " + queryString);
+        LOGGER.fine(() -> "➡️ Type параметр: " + type);
 
         setCorsHeaders(resp);
+
+        // Версія береться до будь-якого звернення до DAO — незмінений каталог не чіпає ні кеш, ні БД
+        long version = catalogVersion.current();
+        if (isNotModified(req, resp, version)) {
+            LOGGER.fine("✅ [doGet] 304 Not Modified");
+            return;
+        }
         resp.setContentType("application/json;charset=UTF-8");
 
         try {
+            String search = req.getParameter("search");
+            boolean searchRequest = isSearchRequest(type, search);
+
+            String cacheKey = responseCacheKey(req, searchRequest ? "search" : type);
+            if (cacheKey != null) {
+                ResponseCache.Entry cached = responseCache.get(cacheKey, version);
+                if (cached != null) {
+                    writeCached(req, resp, cached);
+                    LOGGER.fine(() -> "📤 [doGet] Відповідь з кешу: " + cacheKey);
+                    return;
+                }
+                req.setAttribute(PendingResponse.ATTRIBUTE, new PendingResponse(cacheKey, version));
+            }
+
+            if (searchRequest) {
+                handleSearchProducts(req, resp, search);
+                return;
+            }
+
             if (type == null || type.isEmpty()) {
                 LOGGER.warning("⚠️ [doGet] Не вказано параметр type! Повертаємо всі продукти за замовчуванням.");
-                sendJson(resp, productDao.getAllProducts(), "📤 Відправлено всі продукти");
+                sendProductList(resp);
                 return;
             }
 
             switch (type.toLowerCase()) {
 
                 case "categories":
-                    LOGGER.info("📂 [doGet] Запит на завантаження всіх категорій");
+                    LOGGER.fine("📂 [doGet] Запит на завантаження всіх категорій");
                     List<Category> categories = categoryDao.getAllCategories();
-                    LOGGER.info("✅ Категорій знайдено: " + categories.size());
-                    sendJson(resp, categories, "📤 Відправлено всі категорії");
+                    LOGGER.fine(() -> "✅ Категорій знайдено: " + categories.size());
+                    sendCatalogJson(req, resp, categories, "📤 Відправлено всі категорії");
                     break;
 
                 case "paged":
-                    LOGGER.info("📄 [doGet] Запит на пагіновану вибірку продуктів");
+                    LOGGER.fine("📄 [doGet] Запит на пагіновану вибірку продуктів");
                     handlePagedProducts(req, resp);
                     break;
 
                 case "category":
-                    LOGGER.info("🔎 [doGet] Запит на отримання категорії за id або slug");
+                    LOGGER.fine("🔎 [doGet] Запит на отримання категорії за id або slug");
 
                     String slug = req.getParameter("slug");
                     String categoryIdParam = req.getParameter("id");
 
-                    LOGGER.info("➡️ slug: " + slug);
-                    LOGGER.info("➡️ categoryId: " + categoryIdParam);
+                    LOGGER.fine(() -> "➡️ slug: " + slug);
+                    LOGGER.fine(() -> "➡️ categoryId: " + categoryIdParam);
 
                     Category category = null;
 
                     if (slug != null && !slug.isEmpty()) {
-                        LOGGER.info("🔎 Пошук категорії за SLUG: " + slug);
+                        LOGGER.fine(() -> "🔎 Пошук категорії за SLUG: " + slug);
                         category = categoryDao.getCategoryBySlug(slug);
 
                     } else if (categoryIdParam != null && !categoryIdParam.isEmpty()) {
                         try {
                             UUID categoryId = UUID.fromString(categoryIdParam);
-                            LOGGER.info("🔎 Пошук категорії за ID: " + categoryId);
+                            LOGGER.fine(() -> "🔎 Пошук категорії за ID: " + categoryId);
                             category = categoryDao.getCategoryById(categoryId);
                         } catch (IllegalArgumentException e) {
                             LOGGER.warning("❌ Некоректний UUID для categoryId: " + categoryIdParam);
@@ -156,17 +209,17 @@ public class ProductServlet extends HttpServlet {
                             req.getContextPath(),
                             category.getCategoryImageId()
                     );
-                    LOGGER.info("🖼️ URL зображення категорії: " + categoryImageUrl);
+                    LOGGER.fine(() -> "🖼️ URL зображення категорії: " + categoryImageUrl);
                     category.setCategoryImageId(categoryImageUrl);
 
-                    sendJson(resp, category, "📤 Категорія надіслана успішно");
+                    sendCatalogJson(req, resp, category, "📤 Категорія надіслана успішно");
                     break;
 
                 case "product":
-                    LOGGER.info("🛍️ [doGet] Запит на отримання одного продукту за id");
+                    LOGGER.fine("🛍️ [doGet] Запит на отримання одного продукту за id");
 
                     String productIdParam = req.getParameter("id");
-                    LOGGER.info("➡️ productId: " + productIdParam);
+                    LOGGER.fine(() -> "➡️ productId: " + productIdParam);
 
                     if (productIdParam == null || productIdParam.isEmpty()) {
                         LOGGER.warning("⚠️ Не вказано параметр 'id' продукту");
@@ -176,7 +229,7 @@ public class ProductServlet extends HttpServlet {
 
                     try {
                         UUID productId = UUID.fromString(productIdParam);
-                        LOGGER.info("🔎 Пошук продукту за ID: " + productId);
+                        LOGGER.fine(() -> "🔎 Пошук продукту за ID: " + productId);
 
                         Product product = productDao.getProductById(productId);
 
@@ -195,23 +248,23 @@ public class ProductServlet extends HttpServlet {
                                 req.getContextPath(),
                                 product.getImageId()
                         );
-                        LOGGER.info("🖼️ URL зображення продукту: " + productImageUrl);
+                        LOGGER.fine(() -> "🖼️ URL зображення продукту: " + productImageUrl);
                         product.setImageId(productImageUrl);
 
-                        // ✅ Получаем данные категории продукта и заполняем categoryTitle и categorySlug
+                        // ✅ Данные категории берутся из кеша CategoryDao — без второго запроса к БД
                         Category productCategory = categoryDao.getCategoryById(product.getCategoryId());
 
                         if (productCategory != null) {
                             product.setCategoryTitle(productCategory.getCategoryTitle());
                             product.setCategorySlug(productCategory.getCategorySlug());
-                            LOGGER.info("✅ Продукт пов'язано з категорією: " + productCategory.getCategoryTitle());
+                            LOGGER.fine(() -> "✅ Продукт пов'язано з категорією: " + productCategory.getCategoryTitle());
                         } else {
                             LOGGER.warning("⚠️ Категорія для продукту не знайдена");
                             product.setCategoryTitle("Категорія не знайдена");
                             product.setCategorySlug("unknown");
                         }
 
-                        sendJson(resp, product, "📤 Продукт надісланий успішно");
+                        sendCatalogJson(req, resp, product, "📤 Продукт надісланий успішно");
 
                     } catch (IllegalArgumentException e) {
                         LOGGER.warning("❌ Некоректний UUID для продукту: " + productIdParam);
@@ -221,10 +274,13 @@ public class ProductServlet extends HttpServlet {
                     break;
 
                 case "products":
-                    LOGGER.info("🛒 [doGet] Запит на отримання всіх продуктів");
-                    List<Product> products = productDao.getAllProducts();
-                    LOGGER.info("✅ Продуктів знайдено: " + products.size());
-                    sendJson(resp, products, "📤 Відправлено всі продукти");
+                    LOGGER.fine("🛒 [doGet] Запит на отримання всіх продуктів");
+                    sendProductList(resp);
+                    break;
+
+                case "export":
+                    LOGGER.fine("📦 [doGet] Потоковий експорт каталогу");
+                    exportProducts(resp, "ndjson".equalsIgnoreCase(req.getParameter("format")));
                     break;
 
                 default:
@@ -238,15 +294,211 @@ public class ProductServlet extends HttpServlet {
             resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "❌ Помилка сервера");
         }
 
-        LOGGER.info("✅ [doGet] Завершення обробки GET-запиту");
+        LOGGER.fine("✅ [doGet] Завершення обробки GET-запиту");
+    }
+
+    /**
+     * Умовний GET за версією каталогу — лише за сильним ETag. Last-Modified не віддається:
+     * з точністю до секунди два записи в одну секунду дали б застарілу 304 за If-Modified-Since.
+     * Заголовки кешування виставляються і для 304, і для повної відповіді.
+     */
+    private boolean isNotModified(HttpServletRequest req, HttpServletResponse resp, long version) {
+        String etag = CatalogVersion.etag(version, null);
+        resp.setHeader("ETag", etag);
+        resp.setHeader("Vary", "Accept-Encoding");
+        RestService.applyCacheTime(resp, catalogMaxAgeSeconds);
+
+        String ifNoneMatch = req.getHeader("If-None-Match");
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        boolean notModified = etagMatches(ifNoneMatch, etag);
+        // Стиснене представлення з кешу відповідей має власний ETag тієї самої версії
+        String gzipEtag = CatalogVersion.etag(version, GZIP_ETAG_VARIANT);
+        if (!notModified && etagMatches(ifNoneMatch, gzipEtag)) {
+            resp.setHeader("ETag", gzipEtag);
+            notModified = true;
+        }
+        if (notModified) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        }
+        return notModified;
+    }
+
+    private static boolean isSearchRequest(String type, String search) {
+        return search != null && !search.isBlank()
+                && (type == null || type.isEmpty() || "products".equalsIgnoreCase(type) || "paged".equalsIgnoreCase(type));
+    }
+
+    /**
+     * Нормалізований ключ кешу відповідей: вид запиту та лише ті параметри, від яких залежить
+     * тіло, у фіксованому порядку. Хост входить у ключ, бо URL зображень будуються з нього.
+     * {@code null} — відповідь не кешується (список за замовчуванням і експорт).
+     */
+    private static String responseCacheKey(HttpServletRequest req, String kind) {
+        if (kind == null || !CACHEABLE_KINDS.contains(kind.toLowerCase(Locale.ROOT))) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder(96)
+                .append(kind.toLowerCase(Locale.ROOT)).append('|')
+                .append(req.getScheme()).append("://").append(req.getServerName()).append(':').append(req.getServerPort())
+                .append(req.getContextPath());
+        for (String name : CACHE_KEY_PARAMS) {
+            String value = req.getParameter(name);
+            if (value != null && !value.isEmpty()) {
+                key.append('|').append(name).append('=').append(value);
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Успішна відповідь каталогу: якщо запит кешований, тіло серіалізується один раз у байти,
+     * кладеться в кеш і віддається тими самими байтами; інакше — звичайний потоковий запис.
+     */
+    private void sendCatalogJson(HttpServletRequest req, HttpServletResponse resp, Object data, String logMessage) throws IOException {
+        PendingResponse pending = (PendingResponse) req.getAttribute(PendingResponse.ATTRIBUTE);
+        if (pending == null) {
+            sendJson(resp, data, logMessage);
+            return;
+        }
+        ResponseCache.Entry entry = responseCache.put(pending.key, pending.version, jsonWriter.toBytes(data));
+        writeCached(req, resp, entry);
+        LOGGER.fine(() -> "📤 " + logMessage);
+    }
+
+    // Готові байти одним write; gzip — якщо він є і клієнт його приймає
+    private void writeCached(HttpServletRequest req, HttpServletResponse resp, ResponseCache.Entry entry) throws IOException {
+        byte[] body = entry.getIdentity();
+        if (entry.getGzip() != null && acceptsGzip(req)) {
+            body = entry.getGzip();
+            resp.setHeader("Content-Encoding", "gzip");
+            resp.setHeader("ETag", CatalogVersion.etag(entry.getVersion(), GZIP_ETAG_VARIANT));
+        }
+        resp.setStatus(HttpServletResponse.SC_OK);
+        resp.setContentType("application/json;charset=UTF-8");
+        resp.setContentLength(body.length);
+        resp.getOutputStream().write(body);
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest req) {
+        String acceptEncoding = req.getHeader("Accept-Encoding");
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length < 2 || !parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    // Ключ і версія кешованого запиту — від перевірки кешу в doGet до запису відповіді
+    private static final class PendingResponse {
+        private static final String ATTRIBUTE = PendingResponse.class.getName();
+
+        private final String key;
+        private final long version;
+
+        private PendingResponse(String key, long version) {
+            this.key = key;
+            this.version = version;
+        }
+    }
+
+    // If-None-Match порівнюється слабко (RFC 9110): W/"x" збігається з "x"
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Повний список продуктів без параметрів. Вибірка читається в буфер, тож з'єднання
+     * повертається в пул до запису відповіді й повільний клієнт його не тримає.
+     * Для великих каталогів призначений потоковий {@code type=export}.
+     */
+    private void sendProductList(HttpServletResponse resp) throws IOException {
+        List<Product> products = productDao.getAllProducts();
+        sendJson(resp, products, "📤 Відправлено всі продукти: " + products.size());
+    }
+
+    /**
+     * Експорт каталогу потоком з курсора. Поки клієнт читає, з'єднання зайняте, тому одночасних
+     * експортів не більше {@code products.export.maxConcurrent}; решта отримує 503 з {@code Retry-After}.
+     */
+    private void exportProducts(HttpServletResponse resp, boolean ndjson) throws IOException {
+        if (!exportPermits.tryAcquire()) {
+            LOGGER.warning("⚠️ Забагато одночасних експортів каталогу, відповідаємо 503");
+            resp.setHeader("Retry-After", "30");
+            resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "❌ Експорт тимчасово недоступний");
+            return;
+        }
+        try {
+            streamAllProducts(resp, ndjson);
+        } finally {
+            exportPermits.release();
+        }
+    }
+
+    /**
+     * Усі продукти прямо з курсора БД у відповідь: JSON-масив або NDJSON ({@code format=ndjson}).
+     * Пам'ять не залежить від розміру каталогу — в обробці завжди один рядок. Запис у потік
+     * блокується, поки повільний клієнт не прочитає попереднє, і це ж гальмує читання з БД.
+     */
+    private void streamAllProducts(HttpServletResponse resp, boolean ndjson) throws IOException {
+        try {
+            productDao.streamAllProducts(rs -> {
+                int rows = ndjson
+                        ? jsonWriter.writeNdjson(resp, HttpServletResponse.SC_OK, rs, Product::fromResultSet, Product.class)
+                        : jsonWriter.writeRows(resp, HttpServletResponse.SC_OK, rs, Product::fromResultSet, Product.class);
+                LOGGER.fine(() -> "📤 Відправлено всі продукти потоком: " + rows);
+            });
+        } catch (IOException e) {
+            // Клієнт закрив з'єднання посеред експорту; запит у БД уже скасовано
+            LOGGER.warning("⚠️ Потоковий експорт перервано клієнтом: " + e.getMessage());
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "❌ Помилка потокового експорту продуктів: " + e.getMessage(), e);
+            // Якщо заголовки вже пішли, клієнт побачить обірваний JSON — інакше повертаємо 500
+            if (!resp.isCommitted()) {
+                resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "❌ Помилка сервера");
+            }
+        }
     }
 
     private void handlePagedProducts(HttpServletRequest req, HttpServletResponse resp) throws IOException {
-        int limit = Integer.parseInt(req.getParameter("limit"));
-        int offset = Integer.parseInt(req.getParameter("offset"));
+        int parsedLimit;
+        try {
+            parsedLimit = Integer.parseInt(req.getParameter("limit"));
+        } catch (NumberFormatException e) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "❌ limit має бути числом");
+            return;
+        }
+        int limit = Math.max(1, Math.min(parsedLimit, ProductDao.MAX_PAGE_SIZE));
+        String offsetParam = req.getParameter("offset");
+        String after = req.getParameter("after");
         String categoryId = req.getParameter("categoryId");
 
-        LOGGER.info("🔎 [handlePagedProducts] Параметры пагинации: limit=" + limit + ", offset=" + offset + ", categoryId=" + categoryId);
+        // Без offset (або з токеном after) — keyset-режим, offset лишається для сумісності
+        if (after != null || offsetParam == null) {
+            handleCursorPagedProducts(req, resp, limit, after, categoryId);
+            return;
+        }
+        int offset = Integer.parseInt(offsetParam);
+
+        LOGGER.fine(() -> "🔎 [handlePagedProducts] Параметры пагинации: limit=" + limit + ", offset=" + offset + ", categoryId=" + categoryId);
 
         List<Product> products;
 
@@ -255,12 +507,72 @@ public class ProductServlet extends HttpServlet {
         } else {
             products = productDao.getProductsPaged(limit, offset, null);
         }
+        if (products == null) {
+            resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "❌ Помилка сервера");
+            return;
+        }
+
+        sendCatalogJson(req, resp, products, "📤 Відправлено продукти з пагінацією");
+    }
+
+    private void handleSearchProducts(HttpServletRequest req, HttpServletResponse resp, String search) throws IOException {
+        int limit;
+        int offset;
+        try {
+            limit = parseIntOrDefault(req.getParameter("limit"), 20);
+            offset = parseIntOrDefault(req.getParameter("offset"), 0);
+        } catch (NumberFormatException e) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "❌ limit/offset мають бути числами");
+            return;
+        }
+        limit = Math.max(1, Math.min(limit, 100));
+        offset = Math.max(0, offset);
 
-        sendJson(resp, products, "📤 Відправлено продукти з пагінацією");
+        Log.event(LOGGER, Level.FINE, "products.search", "search", search, "limit", limit, "offset", offset);
+
+        List<Product> products = productDao.searchProducts(search.trim(), limit, offset);
+        if (products == null) {
+            // Помилка БД — не віддаємо її як «нічого не знайдено»
+            resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "❌ Помилка сервера");
+            return;
+        }
+        sendCatalogJson(req, resp, products, "📤 Відправлено результати пошуку");
+    }
+
+    private static int parseIntOrDefault(String value, int defaultValue) {
+        return value == null || value.isEmpty() ? defaultValue : Integer.parseInt(value);
+    }
+
+    private void handleCursorPagedProducts(HttpServletRequest req, HttpServletResponse resp,
+                                           int limit, String after, String categoryId) throws IOException {
+        ProductCursor cursor = null;
+        UUID category = null;
+        try {
+            if (after != null && !after.isEmpty()) {
+                cursor = ProductCursor.decode(after);
+            }
+            if (categoryId != null && !categoryId.isEmpty()) {
+                category = UUID.fromString(categoryId);
+            }
+        } catch (IllegalArgumentException e) {
+            LOGGER.warning("❌ [handlePagedProducts] Некоректний after/categoryId: " + after + " / " + categoryId);
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "❌ Невірний токен after або categoryId");
+            return;
+        }
+
+        LOGGER.fine(() -> "🔎 [handlePagedProducts] Keyset-пагінація: limit=" + limit + ", categoryId=" + categoryId);
+
+        ProductPage page = productDao.getProductsAfter(category, cursor, limit);
+        if (page == null) {
+            // Помилка БД — не віддаємо її як порожню останню сторінку
+            resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "❌ Помилка сервера");
+            return;
+        }
+        sendCatalogJson(req, resp, page, "📤 Відправлено сторінку продуктів (keyset)");
     }
 
     private void getCategory(HttpServletRequest req, HttpServletResponse resp) throws IOException {
-        LOGGER.info("📥 [getCategory] Початок обробки запиту на отримання категорії...");
+        LOGGER.fine("📥 [getCategory] Початок обробки запиту на отримання категорії...");
 
         // Получаем параметр categoryId из запроса
         String categoryIdParam = req.getParameter("id");
@@ -271,12 +583,12 @@ public class ProductServlet extends HttpServlet {
             return;
         }
 
-        LOGGER.info("🔍 [getCategory] Отримано categoryId з запиту: " + categoryIdParam);
+        LOGGER.fine(() -> "🔍 [getCategory] Отримано categoryId з запиту: " + categoryIdParam);
 
         try {
             // Пробуем сконвертить строку в UUID
             UUID categoryId = UUID.fromString(categoryIdParam);
-            LOGGER.info("🆔 [getCategory] Перетворення в UUID успішне: " + categoryId);
+            LOGGER.fine(() -> "🆔 [getCategory] Перетворення в UUID успішне: " + categoryId);
 
             // Получаем категорию из БД по id
             Category category = categoryDao.getCategoryById(categoryId);
@@ -287,7 +599,7 @@ public class ProductServlet extends HttpServlet {
                 return;
             }
 
-            LOGGER.info("✅ [getCategory] Категорія знайдена: " + category.getCategoryTitle() + " (ID: " + category.getCategoryId() + ")");
+            LOGGER.fine(() -> "✅ [getCategory] Категорія знайдена: " + category.getCategoryTitle() + " (ID: " + category.getCategoryId() + ")");
 
             // Формируем URL для картинки
             String imgUrl = String.format(
@@ -300,7 +612,7 @@ public class ProductServlet extends HttpServlet {
                     category.getCategoryImageId()
             );
 
-            LOGGER.info("🖼️ [getCategory] Посилання на зображення категорії: " + imgUrl);
+            LOGGER.fine(() -> "🖼️ [getCategory] Посилання на зображення категорії: " + imgUrl);
 
             // Обновляем URL картинки в объекте
             category.setCategoryImageId(imgUrl);
@@ -315,7 +627,7 @@ public class ProductServlet extends HttpServlet {
             logErrorAndRespond(resp, "❌ [getCategory] Помилка при обробці запиту категорії", e);
         }
 
-        LOGGER.info("✅ [getCategory] Завершення обробки запиту.");
+        LOGGER.fine("✅ [getCategory] Завершення обробки запиту.");
     }
 
     // ========================
@@ -617,9 +929,9 @@ public class ProductServlet extends HttpServlet {
     }
 
     private void sendJson(HttpServletResponse resp, Object data, String logMessage) throws IOException {
-        String json = new Gson().toJson(data);
-        resp.getWriter().print(json);
-        LOGGER.info("📤 " + logMessage + ": " + data);
+        // Статус міг бути виставлений раніше (наприклад, 400 перед sendJsonError) — зберігаємо його
+        jsonWriter.write(resp, resp.getStatus(), data);
+        LOGGER.fine(() -> "📤 " + logMessage);
     }
 
     private void sendJsonSuccess(HttpServletResponse resp, String message) throws IOException {
@@ -635,20 +947,12 @@ public class ProductServlet extends HttpServlet {
         resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "❌ Помилка сервера");
     }
 
-    // Авторизація (для POST/PUT/DELETE)
+    // Авторизація (для POST/PUT/DELETE): токен уже перевірено в AuthJwtFilter
     private boolean isAuthorized(HttpServletRequest req) {
-        String authHeader = req.getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            LOGGER.warning("🚫 [isAuthorized] Немає авторизації або неправильний формат токена!");
+        if (AuthPrincipal.from(req) == null) {
+            LOGGER.warning("🚫 [isAuthorized] Запит без валідного токена: " + req.getAttribute("authStatus"));
             return false;
         }
-        String token = authHeader.substring("Bearer ".length());
-        boolean isValid = JwtUtil.validateToken(token);
-        if (!isValid) {
-            LOGGER.warning("🚷 [isAuthorized] Токен недійсний!");
-        } else {
-            LOGGER.info("✅ [isAuthorized] Токен валідний.");
-        }
-        return isValid;
+        return true;
     }
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import com.google.gson.Gson;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import itstep.learning.rest.RestResponse;
+import itstep.learning.rest.RestService;
 import itstep.learning.services.random.RandomService;
 import itstep.learning.services.random.RandomServiceImpl;
 import jakarta.servlet.ServletException;
@@ -84,6 +85,7 @@ public class RandomServlet extends HttpServlet {
                 ))
                 .setData(result);
 
+        RestService.applyCacheTime(resp, restResponse.getCacheTime());
         sendJsonResponse(resp, 200, gson.toJson(restResponse));
     }
 
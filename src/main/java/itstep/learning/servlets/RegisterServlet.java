@@ -6,9 +6,12 @@ import com.google.inject.Inject;
 import itstep.learning.dal.dao.AccessTokenDao;
 import itstep.learning.dal.dao.UserDao;
 import itstep.learning.models.User;
+import itstep.learning.rest.AsyncCompletion;
 import itstep.learning.rest.RestResponse;
 import itstep.learning.rest.RestService;
 import itstep.learning.services.DbService.DbService;
+import itstep.learning.services.hash.PasswordHashExecutor;
+import itstep.learning.services.kdf.KdfPolicyService;
 import jakarta.inject.Singleton;
 import jakarta.servlet.ServletConfig;
 import jakarta.servlet.ServletContext;
@@ -27,6 +30,9 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -45,24 +51,21 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 @Singleton
-@WebServlet("/register")
+@WebServlet(value = "/register", asyncSupported = true)
 public class RegisterServlet extends HttpServlet {
     private static final Logger LOGGER = Logger.getLogger(RegisterServlet.class.getName());
     private final Gson gson = new Gson();
+
+    // DAO берёт соединение из пула на каждую операцию, поэтому безопасен для параллельных запросов
+    @Inject
     private UserDao userDao;
 
-    @Override
-    public void init(ServletConfig config) throws ServletException {
-        super.init(config);
-        ServletContext context = config.getServletContext();
+    @Inject
+    private PasswordHashExecutor passwordHashExecutor;
 
-        // Из контекста Tomcat берем уже созданное Connection (если вы его там сохраняете)
-        Connection connection = (Connection) context.getAttribute("dbConnection");
-        Logger appLogger = (Logger) context.getAttribute("appLogger");
-
-        // Создаём DAO
-        userDao = new UserDao(connection, appLogger);
-    }
+    // Стоимость BCrypt подобрана под хост при старте (вместо жёсткого gensalt(12))
+    @Inject
+    private KdfPolicyService kdfPolicyService;
 
     /**
      * GET: Получение списка пользователей
@@ -72,7 +75,36 @@ public class RegisterServlet extends HttpServlet {
         LOGGER.info("GET-запит отримано: повертаємо список користувачів");
         setupResponseHeaders(resp);
 
-        List<User> users = userDao.getAllUsers(); // Получаем список пользователей из БД
+        // Постранично: ?limit=50&after=<id последнего пользователя>; формат ответа — прежний массив,
+        // курсор следующей страницы передаётся в заголовке X-Next-After
+        int limit;
+        Long afterId = null;
+        try {
+            String limitParam = req.getParameter("limit");
+            limit = limitParam == null || limitParam.isEmpty() ? 50 : Integer.parseInt(limitParam);
+            String afterParam = req.getParameter("after");
+            if (afterParam != null && !afterParam.isEmpty()) {
+                afterId = Long.parseLong(afterParam);
+            }
+        } catch (NumberFormatException e) {
+            sendJsonResponse(resp, 400, "{\"message\": \"Невалідні параметри limit/after\"}");
+            return;
+        }
+        limit = Math.max(1, Math.min(limit, 500));
+
+        // Лишняя строка показывает, есть ли следующая страница
+        List<User> users;
+        try {
+            users = userDao.getUsersPage(afterId, limit + 1);
+        } catch (RuntimeException e) {
+            // DAO уже залогировал SQLException; отвечаем JSON, а не HTML-страницей контейнера
+            sendJsonResponse(resp, 500, "{\"message\": \"Помилка бази даних\"}");
+            return;
+        }
+        if (users.size() > limit) {
+            users.remove(limit);
+            resp.setHeader("X-Next-After", String.valueOf(users.get(limit - 1).getId()));
+        }
         String jsonResponse = gson.toJson(users);
         sendJsonResponse(resp, 200, jsonResponse);
     }
@@ -112,10 +144,50 @@ public class RegisterServlet extends HttpServlet {
                 return;
             }
 
-            // 5) Хешируем пароль
-            String hashedPassword = BCrypt.hashpw(user.getPassword(), BCrypt.gensalt(12));
-            user.setPassword(hashedPassword);
+            // 5) Хешируем пароль на пуле хеширования, поток контейнера освобождается
+            CompletableFuture<String> hashing;
+            try {
+                hashing = passwordHashExecutor.hashpw(user.getPassword(), kdfPolicyService.getBcryptCost());
+            } catch (RejectedExecutionException e) {
+                sendOverloaded(resp);
+                return;
+            }
+
+            if (!req.isAsyncSupported()) {
+                completeRegistration(resp, user, hashing);
+                return;
+            }
+            // Тайм-аут не коротший за чергу пулу, інакше контейнер завершить запит раніше за хешування
+            AsyncCompletion completion = AsyncCompletion.start(req, passwordHashExecutor.getAsyncTimeoutMs(),
+                    this::sendOverloaded);
+            hashing.whenComplete((hash, error) ->
+                    completion.finish(r -> completeRegistration(r, user, hashing)));
+
+        } catch (JsonSyntaxException e) {
+            LOGGER.log(Level.WARNING, "❌ [RegisterServlet] Помилка парсингу JSON", e);
+            sendJsonResponse(resp, 400, "{\"message\": \"Некоректний формат JSON\"}");
+        }
+    }
+
+    private void sendOverloaded(HttpServletResponse resp) throws IOException {
+        resp.setHeader("Retry-After", String.valueOf(passwordHashExecutor.getRetryAfterSeconds()));
+        sendJsonResponse(resp, 503, "{\"message\": \"Сервер перевантажений, спробуйте пізніше\"}");
+    }
 
+    /**
+     * Продолжение регистрации после хеширования пароля: сохранение и ответ
+     */
+    private void completeRegistration(HttpServletResponse resp, User user,
+                                      CompletableFuture<String> hashing) throws IOException {
+        try {
+            user.setPassword(hashing.join());
+        } catch (CompletionException e) {
+            LOGGER.log(Level.SEVERE, "❌ [RegisterServlet] Помилка хешування пароля", e.getCause());
+            sendJsonResponse(resp, 500, "{\"message\": \"Помилка хешування пароля\"}");
+            return;
+        }
+
+        try {
             // 6) Генерируем userId и вспомогательные поля
             long newUserId = UUID.randomUUID().getMostSignificantBits() & Long.MAX_VALUE;
             user.setId(newUserId);
@@ -132,9 +204,6 @@ public class RegisterServlet extends HttpServlet {
             LOGGER.info("✅ [RegisterServlet] Користувач успішно зареєстрований!");
             sendJsonResponse(resp, 201, "{\"message\": \"Користувач успішно зареєстрований!\"}");
 
-        } catch (JsonSyntaxException e) {
-            LOGGER.log(Level.WARNING, "❌ [RegisterServlet] Помилка парсингу JSON", e);
-            sendJsonResponse(resp, 400, "{\"message\": \"Некоректний формат JSON\"}");
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "❌ [RegisterServlet] Помилка бази даних", e);
             sendJsonResponse(resp, 500, "{\"message\": \"Помилка бази даних\"}");
@@ -198,6 +267,7 @@ public class RegisterServlet extends HttpServlet {
         resp.setHeader("Access-Control-Allow-Headers", "Content-Type, Authorization");
         resp.setHeader("Access-Control-Max-Age", "3600");
         resp.setHeader("Access-Control-Allow-Credentials", "true");
+        resp.setHeader("Access-Control-Expose-Headers", "X-Next-After");
     }
 
     /**
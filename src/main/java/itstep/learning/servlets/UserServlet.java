@@ -7,9 +7,11 @@ import itstep.learning.dal.dao.CartDao;
 import itstep.learning.dal.dao.DataContext;
 import itstep.learning.dal.dao.UserDao;
 import itstep.learning.dal.dto.Cart;
+import itstep.learning.models.AuthPrincipal;
 import itstep.learning.models.User;
-import itstep.learning.services.JwtService;
+import itstep.learning.rest.JsonResponseWriter;
 import itstep.learning.services.LocalDateTimeAdapter;
+import itstep.learning.services.hash.CryptoUtils;
 import jakarta.inject.Singleton;
 import jakarta.servlet.ServletConfig;
 import jakarta.servlet.ServletContext;
@@ -20,10 +22,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.sql.*;
 import java.time.LocalDateTime;
@@ -41,32 +40,18 @@ public class UserServlet extends HttpServlet {
 
     private static final Logger LOGGER = Logger.getLogger(UserServlet.class.getName());
 
-    private UserDao userDao;
-    private Connection connection;
-
     @Inject
-    private JwtService jwtService;
+    private UserDao userDao;
 
     @Inject
     private CartDao cartDao;
 
-    private final Gson gson = new GsonBuilder()
-            .registerTypeAdapter(LocalDateTime.class, (JsonSerializer<LocalDateTime>) (src, typeOfSrc, context) ->
-                    new JsonPrimitive(src.toString()))
-            .registerTypeAdapter(UUID.class, (JsonSerializer<UUID>) (src, typeOfSrc, context) ->
-                    new JsonPrimitive(src.toString()))
-            .setPrettyPrinting()
-            .create();
+    @Inject
+    private JsonResponseWriter jsonWriter;
 
     @Override
     public void init(ServletConfig config) throws ServletException {
         super.init(config);
-        ServletContext context = config.getServletContext();
-
-        this.connection = (Connection) context.getAttribute("dbConnection");
-        Logger appLogger = (Logger) context.getAttribute("appLogger");
-
-        userDao = new UserDao(connection, appLogger);
         LOGGER.info("✅ [UserServlet] Ініціалізація завершена успішно");
     }
 
@@ -75,21 +60,14 @@ public class UserServlet extends HttpServlet {
         setupResponseHeaders(resp);
         LOGGER.info("➡️ [doGet] Запит на отримання профілю користувача");
 
-        String token = extractBearerToken(req);
-        if (token == null) {
-            LOGGER.warning("⛔ [doGet] Відсутній токен у запиті (Authorization header)");
+        AuthPrincipal principal = AuthPrincipal.from(req);
+        if (principal == null) {
+            LOGGER.warning("⛔ Відсутній або недійсний токен: " + req.getAttribute("authStatus"));
             sendJsonResponse(resp, 401, Map.of("error", "Access token is missing or invalid"));
             return;
         }
 
-        JsonElement payload = jwtService.fromJwt(token);
-        if (payload == null) {
-            LOGGER.warning("⛔ [doGet] Токен недійсний або прострочений: " + token);
-            sendJsonResponse(resp, 403, Map.of("error", "Invalid or expired token"));
-            return;
-        }
-
-        long userId = payload.getAsJsonObject().get("user_id").getAsLong();
+        long userId = principal.getUserId();
         LOGGER.info("✅ [doGet] Авторизований користувач ID: " + userId);
 
         try {
@@ -119,25 +97,20 @@ public class UserServlet extends HttpServlet {
         setupResponseHeaders(resp);
         LOGGER.info("✏️ [doPut] Запит на оновлення профілю користувача");
 
-        String token = extractBearerToken(req);
-        if (token == null) {
+        AuthPrincipal principal = AuthPrincipal.from(req);
+        if (principal == null) {
+            LOGGER.warning("⛔ Відсутній або недійсний токен: " + req.getAttribute("authStatus"));
             sendJsonResponse(resp, 401, Map.of("error", "Access token is missing or invalid"));
             return;
         }
 
-        JsonElement payload = jwtService.fromJwt(token);
-        if (payload == null) {
-            sendJsonResponse(resp, 403, Map.of("error", "Invalid or expired token"));
-            return;
-        }
-
-        long userId = payload.getAsJsonObject().get("user_id").getAsLong();
+        long userId = principal.getUserId();
 
         String body = new String(req.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
         LOGGER.info("📥 [doPut] Отримано JSON body: " + body);
 
         try {
-            User updatedUser = gson.fromJson(body, User.class);
+            User updatedUser = jsonWriter.getGson().fromJson(body, User.class);
             User existingUser = userDao.getUserById(userId);
 
             if (existingUser == null) {
@@ -168,19 +141,14 @@ public class UserServlet extends HttpServlet {
     protected void doDelete(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         setupResponseHeaders(resp);
 
-        String token = extractBearerToken(req);
-        if (token == null) {
+        AuthPrincipal principal = AuthPrincipal.from(req);
+        if (principal == null) {
+            LOGGER.warning("⛔ Відсутній або недійсний токен: " + req.getAttribute("authStatus"));
             sendJsonResponse(resp, 401, Map.of("error", "Access token is missing or invalid"));
             return;
         }
 
-        JsonElement payload = jwtService.fromJwt(token);
-        if (payload == null) {
-            sendJsonResponse(resp, 403, Map.of("error", "Invalid or expired token"));
-            return;
-        }
-
-        long userId = payload.getAsJsonObject().get("user_id").getAsLong();
+        long userId = principal.getUserId();
 
         try {
             User user = userDao.getUserById(userId);
@@ -231,13 +199,6 @@ public class UserServlet extends HttpServlet {
         return cart;
     }
 
-    private String extractBearerToken(HttpServletRequest req) {
-        String authHeader = req.getHeader("Authorization");
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            return authHeader.substring(7);
-        }
-        return null;
-    }
     @Override
     protected void doOptions(HttpServletRequest req, HttpServletResponse resp) {
         setupResponseHeaders(resp);
@@ -252,16 +213,8 @@ public class UserServlet extends HttpServlet {
     }
 
     private void sendJsonResponse(HttpServletResponse resp, int statusCode, Object data) throws IOException {
-        String json = gson.toJson(data);
-
-        resp.setStatus(statusCode);
-        resp.setContentType("application/json; charset=UTF-8");
-
-        try (PrintWriter writer = resp.getWriter()) {
-            writer.write(json);
-        }
-
-        LOGGER.info("📤 Відповідь HTTP " + statusCode + ": " + json);
+        jsonWriter.write(resp, statusCode, data);
+        LOGGER.fine(() -> "📤 Відповідь HTTP " + statusCode);
     }
 
     private String generateSalt() {
@@ -277,15 +230,9 @@ public class UserServlet extends HttpServlet {
     }
 
     private String generateDerivedKey(String login, String salt) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] hashBytes = md.digest((login + salt).getBytes(StandardCharsets.UTF_8));
-            String derivedKey = Base64.getEncoder().encodeToString(hashBytes);
-
-            return derivedKey.length() > 20 ? derivedKey.substring(0, 20) : derivedKey;
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("Ошибка генерации derivedKey", e);
-        }
+        // Первые 20 символов Base64(SHA-256) кодируются сразу, без полной строки и substring
+        return CryptoUtils.digestBase64(CryptoUtils.sha256(),
+                (login + salt).getBytes(StandardCharsets.UTF_8), 20);
     }
 }
 
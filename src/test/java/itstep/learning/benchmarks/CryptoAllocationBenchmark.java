@@ -0,0 +1,98 @@
+package itstep.learning.benchmarks;
+
+import itstep.learning.services.hash.CryptoUtils;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Выделение памяти (байт/вызов) и время (нс/вызов) для MD5-hex и SHA-256-Base64(20)
+ * в прежней реализации и через {@link CryptoUtils}. БД не нужна.
+ * Байты считаются через {@code com.sun.management.ThreadMXBean#getThreadAllocatedBytes}
+ * (то же, что показывает профайлер gc.alloc.rate.norm в JMH).
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=itstep.learning.benchmarks.CryptoAllocationBenchmark -Dexec.args="200000"
+ * </pre>
+ */
+public class CryptoAllocationBenchmark {
+    private static final String INPUT = "user-login-123" + "a1b2c3d4e5f6a7b8";
+    private static volatile Object sink;
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        check(legacyMd5Hex(INPUT), CryptoUtils.digestHex(CryptoUtils.md5(), INPUT.getBytes()));
+        check(legacySha256Base64(INPUT),
+                CryptoUtils.digestBase64(CryptoUtils.sha256(), INPUT.getBytes(StandardCharsets.UTF_8), 20));
+
+        run("md5 hex     before", iterations, () -> legacyMd5Hex(INPUT));
+        run("md5 hex     after ", iterations, () -> CryptoUtils.digestHex(CryptoUtils.md5(), INPUT.getBytes()));
+        run("sha256 b64  before", iterations, () -> legacySha256Base64(INPUT));
+        run("sha256 b64  after ", iterations, () ->
+                CryptoUtils.digestBase64(CryptoUtils.sha256(), INPUT.getBytes(StandardCharsets.UTF_8), 20));
+    }
+
+    private static void run(String name, int iterations, Supplier<String> task) {
+        // Прогрев JIT
+        for (int i = 0; i < iterations; i++) {
+            sink = task.get();
+        }
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink = task.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+        System.out.printf(Locale.ROOT, "%s  %8.1f ns/op  %8.1f B/op%n",
+                name, (double) elapsed / iterations, (double) allocated / iterations);
+    }
+
+    private static void check(String expected, String actual) {
+        if (!expected.equals(actual)) {
+            throw new IllegalStateException("Результаты различаются: " + expected + " != " + actual);
+        }
+    }
+
+    // Прежний Md5HashService.digest
+    private static String legacyMd5Hex(String input) {
+        try {
+            char[] chars = new char[32];
+            int i = 0;
+            for (byte b : MessageDigest.getInstance("MD5").digest(input.getBytes())) {
+                int bi = b & 0xFF;
+                String str = Integer.toHexString(bi);
+                if (bi < 16) {
+                    chars[i] = '0';
+                    chars[i + 1] = str.charAt(0);
+                } else {
+                    chars[i] = str.charAt(0);
+                    chars[i + 1] = str.charAt(1);
+                }
+                i += 2;
+            }
+            return new String(chars);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // Прежний UserServlet.generateDerivedKey
+    private static String legacySha256Base64(String input) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            String derivedKey = Base64.getEncoder().encodeToString(md.digest(input.getBytes(StandardCharsets.UTF_8)));
+            return derivedKey.length() > 20 ? derivedKey.substring(0, 20) : derivedKey;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
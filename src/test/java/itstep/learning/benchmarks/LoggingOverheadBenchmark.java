@@ -0,0 +1,148 @@
+package itstep.learning.benchmarks;
+
+import com.google.gson.Gson;
+import itstep.learning.dal.dto.Product;
+import itstep.learning.services.logging.AsyncLogHandler;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+import java.util.logging.StreamHandler;
+
+/**
+ * Пропускна здатність обробки {@code /products?type=products} без БД: серіалізація списку
+ * продуктів плюс логування, як у CharsetFilter → ProductServlet → ProductDao.getAllProducts.
+ * <ul>
+ *     <li>before — INFO з конкатенацією, toString кожного продукту, повний JSON у лог,
+ *     синхронний StreamHandler у файл;</li>
+ *     <li>after — ті самі місця як FINE через Supplier (вимкнені) і AsyncLogHandler для INFO.</li>
+ * </ul>
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=itstep.learning.benchmarks.LoggingOverheadBenchmark -Dexec.args="100 4 5"
+ * </pre>
+ * Аргументи: кількість продуктів, потоки, секунди на режим.
+ */
+public class LoggingOverheadBenchmark {
+    private static final Logger LOGGER = Logger.getLogger("itstep.learning.benchmarks.products");
+    private static final Gson GSON = new Gson();
+
+    public static void main(String[] args) throws Exception {
+        int productCount = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        List<Product> products = products(productCount);
+        LOGGER.setUseParentHandlers(false);
+        LOGGER.setLevel(Level.INFO);
+
+        File logFile = File.createTempFile("logging-benchmark", ".log");
+        logFile.deleteOnExit();
+        try (OutputStream out = new FileOutputStream(logFile)) {
+            Handler sync = new StreamHandler(out, new SimpleFormatter()) {
+                @Override
+                public synchronized void publish(java.util.logging.LogRecord record) {
+                    super.publish(record);
+                    flush(); // як ConsoleHandler/FileHandler — запис на кожне повідомлення
+                }
+            };
+
+            LOGGER.addHandler(sync);
+            run("before", threads, 1, () -> before(products));
+            double before = run("before", threads, seconds, () -> before(products));
+            LOGGER.removeHandler(sync);
+
+            AsyncLogHandler async = new AsyncLogHandler(8192, sync);
+            LOGGER.addHandler(async);
+            run("after ", threads, 1, () -> after(products));
+            double after = run("after ", threads, seconds, () -> after(products));
+            LOGGER.removeHandler(async);
+            async.close();
+
+            System.out.printf("products=%d threads=%d: before %.0f req/s, after %.0f req/s (x%.1f), dropped=%d%n",
+                    productCount, threads, before, after, after / before, async.getDroppedCount());
+        }
+    }
+
+    private static int before(List<Product> products) {
+        LOGGER.info("➡️ CharsetFilter doFilter() вызван");
+        LOGGER.info("ℹ️ Content-Type перед проверкой: " + "application/json;charset=UTF-8");
+        LOGGER.info("📥 [doGet] Початок обробки GET-запиту:");
+        LOGGER.info("🛒 [doGet] Запит на отримання всіх продуктів");
+        LOGGER.info("📥 Отримання всіх продуктів...");
+        for (Product product : products) {
+            LOGGER.info("✅ Завантажено продукт: " + product);
+        }
+        LOGGER.info("✅ Кількість продуктів: " + products.size());
+        String json = GSON.toJson(products);
+        LOGGER.info("📤 Відправлено всі продукти: " + json);
+        LOGGER.info("✅ [doGet] Завершення обробки GET-запиту");
+        return json.length();
+    }
+
+    private static int after(List<Product> products) {
+        LOGGER.fine("➡️ CharsetFilter doFilter() вызван");
+        LOGGER.fine(() -> "ℹ️ Content-Type перед проверкой: " + "application/json;charset=UTF-8");
+        LOGGER.fine("📥 [doGet] Початок обробки GET-запиту:");
+        LOGGER.fine("🛒 [doGet] Запит на отримання всіх продуктів");
+        LOGGER.fine("📥 Отримання всіх продуктів...");
+        for (Product product : products) {
+            LOGGER.fine(() -> "✅ Завантажено продукт: " + product);
+        }
+        LOGGER.fine(() -> "✅ Кількість продуктів: " + products.size());
+        String json = GSON.toJson(products);
+        LOGGER.fine(() -> "📤 Відправлено всі продукти (" + json.length() + " симв.)");
+        LOGGER.fine("✅ [doGet] Завершення обробки GET-запиту");
+        return json.length();
+    }
+
+    private static double run(String label, int threads, int seconds, Request request) throws InterruptedException {
+        LongAdder requests = new LongAdder();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                long sink = 0;
+                while (System.nanoTime() < deadline) {
+                    sink += request.handle();
+                    requests.increment();
+                }
+                if (sink == 42) {
+                    System.out.print("");
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        double perSecond = requests.sum() / (double) seconds;
+        System.out.printf("%s %,12.0f req/s%n", label, perSecond);
+        return perSecond;
+    }
+
+    private static List<Product> products(int count) {
+        List<Product> products = new ArrayList<>(count);
+        UUID categoryId = UUID.randomUUID();
+        for (int i = 0; i < count; i++) {
+            Product product = new Product("Товар " + i, "Опис товару номер " + i + " для каталогу",
+                    100.0 + i, "CODE-" + i, i % 50, categoryId, "img-" + i + ".jpg");
+            product.setProductId(UUID.randomUUID());
+            products.add(product);
+        }
+        return products;
+    }
+
+    @FunctionalInterface
+    private interface Request {
+        int handle();
+    }
+}
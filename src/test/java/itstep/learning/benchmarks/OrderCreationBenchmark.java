@@ -0,0 +1,91 @@
+package itstep.learning.benchmarks;
+
+import itstep.learning.dal.dao.OrdersDao;
+import itstep.learning.dal.dao.ProductDao;
+import itstep.learning.dal.dto.CartItem;
+import itstep.learning.dal.dto.Product;
+import itstep.learning.models.Order;
+import itstep.learning.services.DbService.MySqlDbService;
+import itstep.learning.services.DbService.PooledDbService;
+import itstep.learning.services.cache.CatalogVersion;
+import itstep.learning.services.config.ConfigService;
+import itstep.learning.services.config.JsonConfigService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Пропускная способность OrdersDao.createOrder (заказов/сек) для заказов из 1, 10 и 100 товаров.
+ * Нужна рабочая БД с appsettings.json и хотя бы одним товаром; созданные заказы удаляются.
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=itstep.learning.benchmarks.OrderCreationBenchmark -Dexec.args="200"
+ * </pre>
+ */
+public class OrderCreationBenchmark {
+    private static final int[] ITEM_COUNTS = {1, 10, 100};
+
+    public static void main(String[] args) {
+        Logger logger = Logger.getLogger(OrderCreationBenchmark.class.getName());
+        Logger.getLogger("").setLevel(Level.WARNING);
+        Arrays.stream(Logger.getLogger("").getHandlers()).forEach(h -> h.setLevel(Level.WARNING));
+
+        int ordersPerRun = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+
+        ConfigService configService = new JsonConfigService(logger);
+        PooledDbService dbService = new PooledDbService(new MySqlDbService(configService), configService);
+        ProductDao productDao = new ProductDao(dbService, logger, configService, new CatalogVersion());
+        OrdersDao ordersDao = new OrdersDao(dbService, logger);
+        ordersDao.installTables();
+
+        List<Product> products = productDao.getAllProducts();
+        if (products.isEmpty()) {
+            System.err.println("Нет товаров в таблице products — нечего заказывать");
+            dbService.shutdown();
+            return;
+        }
+
+        UUID userId = UUID.randomUUID();
+        List<UUID> created = new ArrayList<>();
+        try {
+            for (int items : ITEM_COUNTS) {
+                // Прогрев: пул, кеш prepared statements, JIT
+                for (int i = 0; i < 20; i++) {
+                    created.add(create(ordersDao, userId, products, items));
+                }
+                long start = System.nanoTime();
+                for (int i = 0; i < ordersPerRun; i++) {
+                    created.add(create(ordersDao, userId, products, items));
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf(Locale.ROOT, "items=%3d  orders=%d  %.1f orders/sec  %.1f items/sec%n",
+                        items, ordersPerRun, ordersPerRun / seconds, ordersPerRun * items / seconds);
+            }
+        } finally {
+            created.forEach(id -> ordersDao.deleteOrder(id.toString()));
+            dbService.shutdown();
+        }
+    }
+
+    private static UUID create(OrdersDao ordersDao, UUID userId, List<Product> products, int itemCount) {
+        List<CartItem> items = new ArrayList<>(itemCount);
+        double total = 0;
+        for (int i = 0; i < itemCount; i++) {
+            Product product = products.get(i % products.size());
+            items.add(new CartItem(UUID.randomUUID(), null, product.getProductId(), null, product.getPrice(), (short) 1));
+            total += product.getPrice();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Order order = new Order(UUID.randomUUID(), userId, total, "NEW", now, now, items);
+        if (!ordersDao.createOrder(order)) {
+            throw new IllegalStateException("createOrder failed");
+        }
+        return order.getOrderId();
+    }
+}
@@ -0,0 +1,64 @@
+package itstep.learning.benchmarks;
+
+import itstep.learning.dal.dao.ProductDao;
+import itstep.learning.services.DbService.MySqlDbService;
+import itstep.learning.services.DbService.PooledDbService;
+import itstep.learning.services.cache.CatalogVersion;
+import itstep.learning.services.config.ConfigService;
+import itstep.learning.services.config.JsonConfigService;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Порівняння повнотекстового пошуку (FULLTEXT, boolean mode) зі старим LIKE '%...%'.
+ * Потрібна робоча БД з appsettings.json; у тестах не запускається.
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=itstep.learning.benchmarks.ProductSearchBenchmark -Dexec.args="скло дерев office"
+ * </pre>
+ */
+public class ProductSearchBenchmark {
+    private static final int WARMUP = 50;
+    private static final int ITERATIONS = 500;
+
+    public static void main(String[] args) {
+        Logger logger = Logger.getLogger(ProductSearchBenchmark.class.getName());
+        Logger.getLogger("").setLevel(Level.WARNING);
+        Arrays.stream(Logger.getLogger("").getHandlers()).forEach(h -> h.setLevel(Level.WARNING));
+
+        ConfigService configService = new JsonConfigService(logger);
+        PooledDbService dbService = new PooledDbService(new MySqlDbService(configService), configService);
+        ProductDao productDao = new ProductDao(dbService, logger, configService, new CatalogVersion());
+        productDao.installTables();
+
+        String[] terms = args.length > 0 ? args : new String[]{"скло", "дерев", "office"};
+        try {
+            for (String term : terms) {
+                report(term, "LIKE    ", () -> productDao.getProductsPaged(20, 0, term));
+                report(term, "FULLTEXT", () -> productDao.searchProducts(term, 20, 0));
+            }
+        } finally {
+            dbService.shutdown();
+        }
+    }
+
+    private static void report(String term, String label, Runnable query) {
+        for (int i = 0; i < WARMUP; i++) {
+            query.run();
+        }
+        long[] samples = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            query.run();
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        double avg = Arrays.stream(samples).average().orElse(0) / 1_000_000.0;
+        double p50 = samples[ITERATIONS / 2] / 1_000_000.0;
+        double p95 = samples[ITERATIONS * 95 / 100] / 1_000_000.0;
+        System.out.printf(Locale.ROOT, "%-10s %s avg=%.3f ms p50=%.3f ms p95=%.3f ms%n", term, label, avg, p50, p95);
+    }
+}
@@ -0,0 +1,53 @@
+package itstep.learning.benchmarks;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Навантаження на розгорнутий застосунок: GET /products?type=products з кількох потоків.
+ * Запускається проти Tomcat двічі — з logging.async.enabled=false і рівнем INFO для
+ * itstep.learning (як до змін) та з налаштуваннями за замовчуванням.
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=itstep.learning.benchmarks.ProductsLoadBenchmark \
+ *     -Dexec.args="http://localhost:8080/Java-Web-211/products?type=products 8 30"
+ * </pre>
+ */
+public class ProductsLoadBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        String url = args.length > 0 ? args[0] : "http://localhost:8080/Java-Web-211/products?type=products";
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).GET().build();
+
+        LongAdder ok = new LongAdder();
+        LongAdder failed = new LongAdder();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                while (System.nanoTime() < deadline) {
+                    try {
+                        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                        (response.statusCode() == 200 ? ok : failed).increment();
+                    } catch (Exception e) {
+                        failed.increment();
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        System.out.printf("%s: %d потоків, %d с — %.0f req/s, помилок %d%n",
+                url, threads, seconds, ok.sum() / (double) seconds, failed.sum());
+    }
+}
@@ -0,0 +1,68 @@
+package itstep.learning.dal.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderCursorTest {
+    private static final UUID ID = UUID.fromString("0b7e6a52-1c3d-4f5e-9a8b-7c6d5e4f3a2b");
+
+    @Test
+    void roundTripKeepsTimestampAndId() {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 3, 14, 15, 9, 26);
+        OrderCursor decoded = OrderCursor.decode(new OrderCursor(createdAt, ID).encode());
+
+        assertEquals(createdAt, decoded.getCreatedAt());
+        assertEquals(ID, decoded.getOrderId());
+    }
+
+    @Test
+    void roundTripKeepsFractionalSeconds() {
+        // TIMESTAMP(6) из MySQL и полночь, где toString() опускает секунды
+        LocalDateTime micros = LocalDateTime.of(2025, 1, 1, 0, 0, 0, 123_456_000);
+        LocalDateTime midnight = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+        assertEquals(micros, OrderCursor.decode(new OrderCursor(micros, ID).encode()).getCreatedAt());
+        assertEquals(midnight, OrderCursor.decode(new OrderCursor(midnight, ID).encode()).getCreatedAt());
+    }
+
+    @Test
+    void tokenIsUrlSafe() {
+        String token = new OrderCursor(LocalDateTime.of(2025, 12, 31, 23, 59, 59), ID).encode();
+
+        assertTrue(token.matches("[A-Za-z0-9_-]+"), token);
+    }
+
+    @Test
+    void corruptedBase64IsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> OrderCursor.decode("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> OrderCursor.decode("a"));
+    }
+
+    @Test
+    void missingSeparatorIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> OrderCursor.decode(token("2025-03-14T15:09:26" + ID)));
+    }
+
+    @Test
+    void badDateIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> OrderCursor.decode(token("вчера\u0000" + ID)));
+        assertThrows(IllegalArgumentException.class, () -> OrderCursor.decode(token("2025-02-30T10:00\u0000" + ID)));
+        assertThrows(IllegalArgumentException.class, () -> OrderCursor.decode(token("\u0000" + ID)));
+    }
+
+    @Test
+    void badUuidIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> OrderCursor.decode(token("2025-03-14T15:09:26\u0000not-a-uuid")));
+        assertThrows(IllegalArgumentException.class, () -> OrderCursor.decode(token("2025-03-14T15:09:26\u0000")));
+    }
+
+    private static String token(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
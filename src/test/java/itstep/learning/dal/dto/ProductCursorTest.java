@@ -0,0 +1,66 @@
+package itstep.learning.dal.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductCursorTest {
+    private static final UUID ID = UUID.fromString("6f1c2a9e-3b4d-4e5f-8a7b-9c0d1e2f3a4b");
+
+    @Test
+    void roundTripKeepsNameAndId() {
+        ProductCursor decoded = ProductCursor.decode(new ProductCursor("Лампа настільна", ID).encode());
+
+        assertEquals("Лампа настільна", decoded.getName());
+        assertEquals(ID, decoded.getProductId());
+    }
+
+    @Test
+    void roundTripKeepsNameWithSeparatorAndSpecialCharacters() {
+        String name = "a\u0000b\u0000 😀 ü/+=";
+        ProductCursor decoded = ProductCursor.decode(new ProductCursor(name, ID).encode());
+
+        assertEquals(name, decoded.getName());
+        assertEquals(ID, decoded.getProductId());
+    }
+
+    @Test
+    void roundTripKeepsEmptyName() {
+        ProductCursor decoded = ProductCursor.decode(new ProductCursor("", ID).encode());
+
+        assertEquals("", decoded.getName());
+        assertEquals(ID, decoded.getProductId());
+    }
+
+    @Test
+    void tokenIsUrlSafe() {
+        String token = new ProductCursor("???>>>~~~ÿÿÿ", ID).encode();
+
+        assertTrue(token.matches("[A-Za-z0-9_-]+"), token);
+    }
+
+    @Test
+    void corruptedBase64IsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode("a"));
+    }
+
+    @Test
+    void missingSeparatorIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode(token("Лампа" + ID)));
+    }
+
+    @Test
+    void badUuidIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode(token("Лампа\u0000not-a-uuid")));
+        assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode(token("Лампа\u0000")));
+    }
+
+    private static String token(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
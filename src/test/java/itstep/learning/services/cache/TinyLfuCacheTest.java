@@ -0,0 +1,191 @@
+package itstep.learning.services.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TinyLfuCacheTest {
+
+    @Test
+    void loaderResultIsCachedOnMiss() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(10);
+
+        assertEquals("v1", cache.get("a", key -> "v1"));
+        assertEquals("v1", cache.get("a", key -> fail("loader must not run on a hit")));
+
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.getLoadCount());
+        assertEquals(1, stats.getSize());
+    }
+
+    @Test
+    void nullFromLoaderIsNotCached() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(10);
+
+        assertNull(cache.get("a", key -> null));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void putDuringLoadWinsOverLoadedValue() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(10);
+
+        // updateProduct між читанням з БД і збереженням у кеш
+        String loaded = cache.get("a", key -> {
+            cache.put(key, "new");
+            return "old";
+        });
+
+        assertEquals("old", loaded);
+        assertEquals("new", cache.get("a"));
+    }
+
+    @Test
+    void invalidateDuringLoadDropsLoadedValue() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(10);
+
+        // deleteProductById між читанням з БД і збереженням у кеш
+        cache.get("a", key -> {
+            cache.invalidate(key);
+            return "deleted";
+        });
+
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void invalidateAllDuringLoadDropsLoadedValue() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(10);
+
+        cache.get("a", key -> {
+            cache.invalidateAll();
+            return "stale";
+        });
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void writeToAnotherKeyDoesNotCancelLoad() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(10);
+
+        cache.get("a", key -> {
+            cache.put("b", "other");
+            cache.invalidate("c");
+            return "v1";
+        });
+
+        assertEquals("v1", cache.get("a"));
+    }
+
+    @Test
+    void failedLoadLeavesNoPendingMark() {
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(10);
+
+        assertThrows(IllegalStateException.class, () -> cache.get("a", key -> {
+            throw new IllegalStateException("db down");
+        }));
+        assertEquals("v1", cache.get("a", key -> "v1"));
+        assertEquals("v1", cache.get("a"));
+    }
+
+    @Test
+    void sizeNeverExceedsMaximum() {
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(50);
+
+        for (int i = 0; i < 1_000; i++) {
+            cache.put(i, i);
+            assertTrue(cache.size() <= 50);
+        }
+        assertTrue(cache.stats().getEvictionCount() > 0);
+    }
+
+    @Test
+    void frequentKeysSurviveOneTimeScan() {
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(100);
+        for (int i = 0; i < 50; i++) {
+            cache.put(i, i);
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) {
+                assertNotNull(cache.get(i));
+            }
+        }
+
+        // Одноразовий прохід по великій кількості нових ключів
+        for (int i = 1_000; i < 3_000; i++) {
+            cache.put(i, i);
+        }
+
+        int survived = 0;
+        for (int i = 0; i < 50; i++) {
+            if (cache.get(i) != null) {
+                survived++;
+            }
+        }
+        assertTrue(survived >= 45, "популярні записи витіснено: залишилось " + survived);
+    }
+
+    @Test
+    void invalidateRemovesFromEveryArea() {
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(100);
+        for (int i = 0; i < 20; i++) {
+            cache.put(i, i);
+        }
+        cache.get(5); // probation → protected
+        cache.invalidate(5);
+        cache.invalidate(19); // ще у вікні
+        cache.invalidate(0);
+
+        assertNull(cache.get(5));
+        assertNull(cache.get(19));
+        assertNull(cache.get(0));
+        assertEquals(17, cache.size());
+    }
+
+    @Test
+    void sketchCountsAndSaturates() {
+        TinyLfuCache.FrequencySketch sketch = new TinyLfuCache.FrequencySketch(1_000);
+        int hash = "product".hashCode();
+
+        assertEquals(0, sketch.frequency(hash));
+        for (int i = 0; i < 5; i++) {
+            sketch.increment(hash);
+        }
+        assertEquals(5, sketch.frequency(hash));
+
+        for (int i = 0; i < 100; i++) {
+            sketch.increment(hash);
+        }
+        assertEquals(15, sketch.frequency(hash));
+    }
+
+    @Test
+    void sketchNeverUnderestimates() {
+        TinyLfuCache.FrequencySketch sketch = new TinyLfuCache.FrequencySketch(10_000);
+        for (int key = 0; key < 500; key++) {
+            for (int i = 0; i < key % 10; i++) {
+                sketch.increment(Integer.hashCode(key));
+            }
+        }
+        for (int key = 0; key < 500; key++) {
+            assertTrue(sketch.frequency(Integer.hashCode(key)) >= key % 10, "ключ " + key);
+        }
+    }
+
+    @Test
+    void sketchHalvesCountersAfterSamplePeriod() {
+        TinyLfuCache.FrequencySketch sketch = new TinyLfuCache.FrequencySketch(10);
+        int hot = 42;
+        for (int i = 0; i < 8; i++) {
+            sketch.increment(hot);
+        }
+        assertEquals(8, sketch.frequency(hot));
+
+        // sampleSize = 10 * maxSize = 100 збільшень, далі всі лічильники діляться навпіл
+        for (int i = 0; i < 100; i++) {
+            sketch.increment(10_000 + i);
+        }
+        assertTrue(sketch.frequency(hot) <= 4, "частота після старіння: " + sketch.frequency(hot));
+    }
+}
@@ -0,0 +1,98 @@
+package itstep.learning.services.hash;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CryptoUtilsTest {
+    private static final byte[] INPUT = "user@example.com:пароль:12345".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void digestHexMatchesReferenceEncoding() throws Exception {
+        assertEquals(referenceHex(MessageDigest.getInstance("MD5").digest(INPUT)),
+                CryptoUtils.digestHex(CryptoUtils.md5(), INPUT));
+        assertEquals(referenceHex(MessageDigest.getInstance("SHA-256").digest(INPUT)),
+                CryptoUtils.digestHex(CryptoUtils.sha256(), INPUT));
+    }
+
+    @Test
+    void toHexMatchesReferenceEncodingForAllByteValues() {
+        byte[] bytes = new byte[256];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        assertEquals(referenceHex(bytes), CryptoUtils.toHex(bytes));
+        assertEquals("", CryptoUtils.toHex(new byte[0]));
+    }
+
+    @Test
+    void digestBase64MatchesJdkEncoder() throws Exception {
+        // 16 байтів (MD5) ≡ 1 mod 3, 20 (SHA-1) і 32 (SHA-256) ≡ 2 mod 3, 48 (SHA-384) ≡ 0 mod 3
+        for (String algorithm : new String[]{"MD5", "SHA-1", "SHA-256", "SHA-384", "SHA-512"}) {
+            String expected = Base64.getEncoder().encodeToString(MessageDigest.getInstance(algorithm).digest(INPUT));
+            assertEquals(expected, CryptoUtils.digestBase64(MessageDigest.getInstance(algorithm), INPUT, Integer.MAX_VALUE),
+                    algorithm);
+        }
+    }
+
+    @Test
+    void digestBase64IsTruncatedToMaxChars() throws Exception {
+        String full = Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(INPUT));
+
+        assertEquals(full.substring(0, 20), CryptoUtils.digestBase64(CryptoUtils.sha256(), INPUT, 20));
+        for (int maxChars = 0; maxChars <= full.length(); maxChars++) {
+            assertEquals(full.substring(0, maxChars), CryptoUtils.digestBase64(CryptoUtils.sha256(), INPUT, maxChars));
+        }
+    }
+
+    @Test
+    void encodeBase64MatchesJdkEncoderForEveryLengthRemainder() {
+        Random random = new Random(42);
+        for (int length = 0; length <= 40; length++) {
+            byte[] bytes = new byte[length];
+            random.nextBytes(bytes);
+            String expected = Base64.getEncoder().encodeToString(bytes);
+
+            char[] out = new char[CryptoUtils.base64Length(length)];
+            int written = CryptoUtils.encodeBase64(bytes, 0, length, out, 0);
+
+            assertEquals(expected.length(), written, "довжина " + length);
+            assertEquals(expected, new String(out), "довжина " + length);
+        }
+    }
+
+    @Test
+    void encodeBase64RespectsOffsets() {
+        byte[] bytes = {9, 9, 1, 2, 3, 4, 5, 9};
+        char[] out = new char[2 + CryptoUtils.base64Length(5)];
+        out[0] = '#';
+        out[1] = '#';
+
+        int written = CryptoUtils.encodeBase64(bytes, 2, 5, out, 2);
+
+        assertEquals(8, written);
+        assertEquals("##" + Base64.getEncoder().encodeToString(new byte[]{1, 2, 3, 4, 5}), new String(out));
+    }
+
+    @Test
+    void digestReusesThreadLocalInstanceWithoutLeakingState() {
+        String first = CryptoUtils.digestHex(CryptoUtils.md5(), INPUT);
+        CryptoUtils.md5().update("незавершений".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(first, CryptoUtils.digestHex(CryptoUtils.md5(), INPUT));
+    }
+
+    // Еталон без CryptoUtils; HexFormat недоступний при source/target 16
+    private static String referenceHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b & 0xFF));
+        }
+        return sb.toString();
+    }
+}
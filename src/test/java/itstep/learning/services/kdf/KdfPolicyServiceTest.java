@@ -0,0 +1,62 @@
+package itstep.learning.services.kdf;
+
+import org.junit.jupiter.api.Test;
+import org.mindrot.jbcrypt.BCrypt;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KdfPolicyServiceTest {
+
+    @Test
+    void bcryptCostIsReadFromEveryVariant() {
+        assertEquals(12, KdfPolicyService.bcryptCostOf("$2a$12$R9h/cIPz0gi.URNNX3kh2OPST9/PgBkqquzi.Ss7KIUgO2t0jWMUW"));
+        assertEquals(10, KdfPolicyService.bcryptCostOf("$2b$10$N9qo8uLOickgx2ZMRZoMyeIjZAgcfl7p92ldGxad68LJZdL17lhWy"));
+        assertEquals(4, KdfPolicyService.bcryptCostOf("$2y$04$abcdefghijklmnopqrstuu"));
+        assertEquals(31, KdfPolicyService.bcryptCostOf("$2a$31$"));
+    }
+
+    @Test
+    void bcryptCostMatchesGeneratedHash() {
+        assertEquals(5, KdfPolicyService.bcryptCostOf(BCrypt.hashpw("пароль", BCrypt.gensalt(5))));
+    }
+
+    @Test
+    void nonBcryptStringsHaveNoCost() {
+        assertEquals(-1, KdfPolicyService.bcryptCostOf(null));
+        assertEquals(-1, KdfPolicyService.bcryptCostOf(""));
+        assertEquals(-1, KdfPolicyService.bcryptCostOf("$2a$12"));
+        assertEquals(-1, KdfPolicyService.bcryptCostOf("$2$12$abcdefghijklmnopqrstuu"));
+        assertEquals(-1, KdfPolicyService.bcryptCostOf("$1$12$abcdefghijklmnopqrstuu"));
+        assertEquals(-1, KdfPolicyService.bcryptCostOf("$2a$1x$abcdefghijklmnopqrstuu"));
+        assertEquals(-1, KdfPolicyService.bcryptCostOf("2a$12$abcdefghijklmnopqrstuuu"));
+        assertEquals(-1, KdfPolicyService.bcryptCostOf("pbkdf2-sha256$1000$abcdef"));
+        assertEquals(-1, KdfPolicyService.bcryptCostOf("plain-text-password"));
+    }
+
+    @Test
+    void rehashOnlyUpward() {
+        KdfPolicyService policy = new KdfPolicyService(MapConfigService.kdf(12, 1_000));
+
+        assertTrue(policy.needsRehash("$2a$10$abcdefghijklmnopqrstuu"));
+        assertTrue(policy.needsRehash("$2b$11$abcdefghijklmnopqrstuu"));
+        assertFalse(policy.needsRehash("$2a$12$abcdefghijklmnopqrstuu"));
+        assertFalse(policy.needsRehash("$2y$14$abcdefghijklmnopqrstuu"));
+    }
+
+    @Test
+    void nonBcryptHashIsNeverRehashed() {
+        KdfPolicyService policy = new KdfPolicyService(MapConfigService.kdf(12, 1_000));
+
+        assertFalse(policy.needsRehash(null));
+        assertFalse(policy.needsRehash("plain-text-password"));
+        assertFalse(policy.needsRehash("pbkdf2-sha256$1000$abcdef"));
+    }
+
+    @Test
+    void explicitConfigDisablesCalibration() {
+        KdfPolicyService policy = new KdfPolicyService(MapConfigService.kdf(9, 2_500));
+
+        assertEquals(9, policy.getBcryptCost());
+        assertEquals(2_500, policy.getPbkdf2Iterations());
+    }
+}
@@ -0,0 +1,50 @@
+package itstep.learning.services.kdf;
+
+import itstep.learning.services.config.ConfigService;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Конфігурація в пам'яті для тестів KDF: явна вартість вимикає калібрування при старті.
+ */
+class MapConfigService implements ConfigService {
+    private final Map<String, Object> values = new HashMap<>();
+
+    static MapConfigService kdf(int bcryptCost, int pbkdf2Iterations) {
+        return new MapConfigService()
+                .with("auth.kdf.bcryptCost", bcryptCost)
+                .with("auth.kdf.pbkdf2Iterations", pbkdf2Iterations);
+    }
+
+    MapConfigService with(String key, Object value) {
+        values.put(key, value);
+        return this;
+    }
+
+    @Override
+    public Object getValue(String path) {
+        return values.get(path);
+    }
+
+    @Override
+    public String getString(String key) {
+        Object value = values.get(key);
+        return value == null ? null : value.toString();
+    }
+
+    @Override
+    public int getInt(String key) {
+        return Integer.parseInt(getString(key));
+    }
+
+    @Override
+    public boolean getBoolean(String key) {
+        return Boolean.parseBoolean(getString(key));
+    }
+
+    @Override
+    public boolean hasKey(String path) {
+        return values.containsKey(path);
+    }
+}
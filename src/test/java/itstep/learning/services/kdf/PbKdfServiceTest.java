@@ -0,0 +1,98 @@
+package itstep.learning.services.kdf;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PbKdfServiceTest {
+    private static final String PASSWORD = "пароль-123";
+    // Сіль ASCII: derive() кодує її кодуванням платформи
+    private static final String SALT = "salt-456";
+
+    @Test
+    void dkEncodesAlgorithmAndIterations() {
+        String dk = service(1_000).dk(PASSWORD, SALT);
+
+        assertTrue(dk.matches("pbkdf2-sha256\\$1000\\$[0-9a-f]{64}"), dk);
+    }
+
+    @Test
+    void roundTripAcrossIterationCounts() {
+        String stored = service(1_000).dk(PASSWORD, SALT);
+
+        // Калібрування після перезапуску обрало іншу кількість — збережений ключ усе одно перевіряється
+        PbKdfService recalibrated = service(3_000);
+        assertTrue(recalibrated.verify(PASSWORD, SALT, stored));
+        assertTrue(recalibrated.verify(PASSWORD, SALT, recalibrated.dk(PASSWORD, SALT)));
+        assertNotEquals(stored, recalibrated.dk(PASSWORD, SALT));
+    }
+
+    @Test
+    void wrongPasswordOrSaltIsRejected() {
+        PbKdfService service = service(1_000);
+        String stored = service.dk(PASSWORD, SALT);
+
+        assertFalse(service.verify("інший", SALT, stored));
+        assertFalse(service.verify(PASSWORD, "salt-457", stored));
+    }
+
+    @Test
+    void legacyBareHexIsVerifiedWithLegacyIterations() throws Exception {
+        String legacy = legacyDk(PASSWORD, SALT);
+        PbKdfService service = service(1_000);
+
+        assertTrue(service.verify(PASSWORD, SALT, legacy));
+        assertFalse(service.verify("інший", SALT, legacy));
+    }
+
+    @Test
+    void malformedLegacyValueIsRejected() throws Exception {
+        String legacy = legacyDk(PASSWORD, SALT);
+        PbKdfService service = service(1_000);
+
+        assertFalse(service.verify(PASSWORD, SALT, legacy.toUpperCase()));
+        assertFalse(service.verify(PASSWORD, SALT, legacy.substring(2)));
+        assertFalse(service.verify(PASSWORD, SALT, ""));
+        assertFalse(service.verify(PASSWORD, SALT, null));
+    }
+
+    @Test
+    void badIterationCountIsRejected() {
+        PbKdfService service = service(1_000);
+        String hex = service.dk(PASSWORD, SALT).substring("pbkdf2-sha256$1000$".length());
+
+        assertFalse(service.verify(PASSWORD, SALT, "pbkdf2-sha256$abc$" + hex));
+        assertFalse(service.verify(PASSWORD, SALT, "pbkdf2-sha256$$" + hex));
+        assertFalse(service.verify(PASSWORD, SALT, "pbkdf2-sha256$0$" + hex));
+        assertFalse(service.verify(PASSWORD, SALT, "pbkdf2-sha256$-1000$" + hex));
+        assertFalse(service.verify(PASSWORD, SALT, "pbkdf2-sha256$99999999999$" + hex));
+        assertFalse(service.verify(PASSWORD, SALT, "pbkdf2-sha256$1000"));
+    }
+
+    @Test
+    void otherPrefixIsRejected() {
+        PbKdfService service = service(1_000);
+        String stored = service.dk(PASSWORD, SALT);
+
+        assertFalse(service.verify(PASSWORD, SALT, stored.replace("pbkdf2-sha256", "pbkdf2-sha512")));
+        assertFalse(service.verify(PASSWORD, SALT, "$2a$10$abcdefghijklmnopqrstuu"));
+    }
+
+    private static PbKdfService service(int iterations) {
+        return new PbKdfService(new KdfPolicyService(MapConfigService.kdf(10, iterations)));
+    }
+
+    // Формат до введення префікса: голий hex, 10 000 ітерацій
+    private static String legacyDk(String password, String salt) throws Exception {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt.getBytes(), PbKdfService.LEGACY_ITERATIONS, 256);
+        byte[] hash = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+        StringBuilder hex = new StringBuilder();
+        for (byte b : hash) {
+            hex.append(String.format("%02x", b & 0xFF));
+        }
+        return hex.toString();
+    }
+}